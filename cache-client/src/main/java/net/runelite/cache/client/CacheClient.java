@@ -28,7 +28,6 @@ import com.google.common.base.Stopwatch;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
-import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
@@ -40,9 +39,12 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -52,7 +54,6 @@ import net.runelite.cache.index.IndexData;
 import net.runelite.protocol.update.decoders.HandshakeResponseDecoder;
 import net.runelite.protocol.update.encoders.ArchiveRequestEncoder;
 import net.runelite.protocol.update.encoders.EncryptionEncoder;
-import net.runelite.protocol.api.update.ArchiveRequestPacket;
 import net.runelite.protocol.api.login.HandshakeResponseType;
 import net.runelite.cache.util.Crc32;
 import net.runelite.protocol.api.handshake.UpdateHandshakePacket;
@@ -67,20 +68,28 @@ public class CacheClient implements AutoCloseable
 	private static final String HOST = "oldschool1.runescape.com";
 	private static final int PORT = 43594;
 
-	private static final int MAX_REQUESTS = 19; // too many and the server closes the conncetion
+	private static final int MAX_REQUESTS = 19; // per connection, too many and the server closes the conncetion
 
 	private final Store store; // store cache will be written to
 	private final String host;
 	private final int clientRevision;
+	private final int connectionCount;
 	private DownloadWatcher watcher;
 
 	private ClientState state;
 
-	private final EventLoopGroup group = new NioEventLoopGroup(1);
-	private Channel channel;
+	private final EventLoopGroup group;
+	private final List<CacheConnection> connections = new ArrayList<>();
 
-	private CompletableFuture<HandshakeResponseType> handshakeFuture;
-	private final Queue<PendingFileRequest> requests = new ArrayDeque<>();
+	// all outstanding requests, both queued and in flight, keyed by index and archive
+	private final Map<Long, PendingFileRequest> requests = new HashMap<>();
+	// requests which have not yet been sent to a connection
+	private final Deque<PendingFileRequest> queue = new ArrayDeque<>();
+
+	private final Stopwatch stopwatch = Stopwatch.createUnstarted();
+	private int requested;
+	private int completed;
+	private long bytes;
 
 	public CacheClient(Store store, int clientRevision)
 	{
@@ -89,9 +98,21 @@ public class CacheClient implements AutoCloseable
 
 	public CacheClient(Store store, String host, int clientRevision)
 	{
+		this(store, host, clientRevision, 1);
+	}
+
+	public CacheClient(Store store, String host, int clientRevision, int connectionCount)
+	{
+		if (connectionCount < 1)
+		{
+			throw new IllegalArgumentException("connection count must be positive");
+		}
+
 		this.store = store;
 		this.host = host;
 		this.clientRevision = clientRevision;
+		this.connectionCount = connectionCount;
+		this.group = new NioEventLoopGroup(connectionCount);
 	}
 
 	public CacheClient(Store store, int clientRevision, DownloadWatcher watcher)
@@ -100,39 +121,51 @@ public class CacheClient implements AutoCloseable
 		this.watcher = watcher;
 	}
 
+	public CacheClient(Store store, int clientRevision, int connectionCount, DownloadWatcher watcher)
+	{
+		this(store, HOST, clientRevision, connectionCount);
+		this.watcher = watcher;
+	}
+
 	public void connect()
 	{
-		Bootstrap b = new Bootstrap();
-		b.group(group)
-			.channel(NioSocketChannel.class)
-			.option(ChannelOption.TCP_NODELAY, true)
-			.handler(new ChannelInitializer<SocketChannel>()
-			{
-				@Override
-				public void initChannel(SocketChannel ch) throws Exception
+		for (int i = 0; i < connectionCount; ++i)
+		{
+			CacheConnection connection = new CacheConnection(this);
+
+			Bootstrap b = new Bootstrap();
+			b.group(group)
+				.channel(NioSocketChannel.class)
+				.option(ChannelOption.TCP_NODELAY, true)
+				.handler(new ChannelInitializer<SocketChannel>()
 				{
-					ChannelPipeline p = ch.pipeline();
-
-					//p.addFirst(new HttpProxyHandler(new InetSocketAddress("runelite.net", 3128)));
-					p.addLast("decoder", new HandshakeResponseDecoder());
-
-					p.addLast(
-						new CacheClientHandler(),
-						new HandshakeResponseHandler(CacheClient.this),
-						new ArchiveResponseHandler(CacheClient.this)
-					);
-
-					p.addLast(
-						new UpdateHandshakeEncoder(),
-						new EncryptionEncoder(),
-						new ArchiveRequestEncoder()
-					);
-				}
-			});
+					@Override
+					public void initChannel(SocketChannel ch) throws Exception
+					{
+						ChannelPipeline p = ch.pipeline();
+
+						//p.addFirst(new HttpProxyHandler(new InetSocketAddress("runelite.net", 3128)));
+						p.addLast("decoder", new HandshakeResponseDecoder());
+
+						p.addLast(
+							new CacheClientHandler(connection),
+							new HandshakeResponseHandler(connection),
+							new ArchiveResponseHandler(connection)
+						);
+
+						p.addLast(
+							new UpdateHandshakeEncoder(),
+							new EncryptionEncoder(),
+							new ArchiveRequestEncoder()
+						);
+					}
+				});
 
-		// Start the client.
-		ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
-		channel = f.channel();
+			// Start the client.
+			ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
+			connection.setChannel(f.channel());
+			connections.add(connection);
+		}
 	}
 
 	public CompletableFuture<HandshakeResponseType> handshake()
@@ -142,20 +175,48 @@ public class CacheClient implements AutoCloseable
 
 		state = ClientState.HANDSHAKING;
 
-		assert handshakeFuture == null;
-		handshakeFuture = new CompletableFuture<>();
+		List<CompletableFuture<HandshakeResponseType>> futures = new ArrayList<>(connections.size());
+		for (CacheConnection connection : connections)
+		{
+			assert connection.getHandshakeFuture() == null;
+
+			CompletableFuture<HandshakeResponseType> future = new CompletableFuture<>();
+			connection.setHandshakeFuture(future);
+			connection.setState(ClientState.HANDSHAKING);
+			futures.add(future);
 
-		channel.writeAndFlush(handshakePacket);
+			connection.getChannel().writeAndFlush(handshakePacket);
+		}
 
-		logger.info("Sent handshake with revision {}", handshakePacket.getRevision());
+		logger.info("Sent handshake with revision {} on {} connection(s)", handshakePacket.getRevision(), connections.size());
 
-		return handshakeFuture;
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+			.thenApply(v ->
+			{
+				for (CompletableFuture<HandshakeResponseType> future : futures)
+				{
+					HandshakeResponseType response = future.join();
+					if (response != HandshakeResponseType.RESPONSE_OK)
+					{
+						return response;
+					}
+				}
+
+				synchronized (this)
+				{
+					state = ClientState.CONNECTED;
+				}
+				return HandshakeResponseType.RESPONSE_OK;
+			});
 	}
 
 	@Override
 	public void close()
 	{
-		channel.close().syncUninterruptibly();
+		for (CacheConnection connection : connections)
+		{
+			connection.getChannel().close().syncUninterruptibly();
+		}
 		group.shutdownGracefully();
 	}
 
@@ -164,26 +225,26 @@ public class CacheClient implements AutoCloseable
 		return clientRevision;
 	}
 
-	public ClientState getState()
+	public synchronized ClientState getState()
 	{
 		return state;
 	}
 
-	void setState(ClientState state)
-	{
-		this.state = state;
-	}
-
-	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	public synchronized DownloadStats getStats()
 	{
-		return handshakeFuture;
+		int inFlight = 0;
+		for (CacheConnection connection : connections)
+		{
+			inFlight += connection.getRequests().size();
+		}
+		return new DownloadStats(requested, completed, inFlight, bytes, stopwatch.elapsed(TimeUnit.NANOSECONDS));
 	}
 
 	public List<IndexInfo> requestIndexes() throws IOException
 	{
 		logger.info("Requesting indexes");
 
-		FileResult result = requestFile(255, 255, true).join();
+		FileResult result = requestFile(255, 255).join();
 		result.decompress(null);
 
 		ByteBuf buffer = Unpooled.wrappedBuffer(result.getContents());
@@ -201,6 +262,19 @@ public class CacheClient implements AutoCloseable
 	}
 
 	public void download() throws IOException
+	{
+		download(false);
+	}
+
+	/**
+	 * Download the cache into the store
+	 *
+	 * @param incremental if set, indexes whose crc and revision match the
+	 * store are assumed to be complete and are not checked for out of date
+	 * archives
+	 * @throws IOException
+	 */
+	public void download(boolean incremental) throws IOException
 	{
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
@@ -233,6 +307,11 @@ public class CacheClient implements AutoCloseable
 				logger.warn("Index {} CRC has changed! (our crc {}, their crc {})",
 					index.getCrc(), index.getCrc(), crc);
 			}
+			else if (incremental)
+			{
+				logger.info("Index {} is up to date, skipping", index.getId());
+				continue;
+			}
 			else
 			{
 				// despite the index being up to date, not everything
@@ -242,7 +321,7 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Downloading index {}", i);
 
-			FileResult indexFileResult = requestFile(255, i, true).join();
+			FileResult indexFileResult = requestFile(255, i).join();
 			indexFileResult.decompress(null);
 
 			logger.info("Downloaded index {}", i);
@@ -269,6 +348,7 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Index {} has {} archives", i, indexData.getArchives().length);
 
+			int outOfDate = 0;
 			for (ArchiveData ad : indexData.getArchives())
 			{
 				Archive existing = index.getArchive(ad.getId());
@@ -282,6 +362,8 @@ public class CacheClient implements AutoCloseable
 					continue;
 				}
 
+				++outOfDate;
+
 				if (existing == null)
 				{
 					logger.info("Archive {}/{} in index {} is out of date, downloading",
@@ -314,9 +396,16 @@ public class CacheClient implements AutoCloseable
 				// Add files
 				archive.setFileData(ad.getFiles());
 
-				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId(), false);
+				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId());
 				future.handle((fr, ex) ->
 				{
+					if (ex != null)
+					{
+						logger.warn("unable to download archive {}/{}",
+							archive.getIndex().getId(), archive.getArchiveId(), ex);
+						return null;
+					}
+
 					byte[] data = fr.getCompressedData();
 
 					Crc32 crc32 = new Crc32();
@@ -350,15 +439,15 @@ public class CacheClient implements AutoCloseable
 					return null;
 				});
 			}
-		}
 
-		// flush any pending requests
-		channel.flush();
+			logger.info("Index {}: {} archives, {} up to date, {} out of date",
+				i, indexData.getArchives().length, indexData.getArchives().length - outOfDate, outOfDate);
+		}
 
-		while (!requests.isEmpty())
+		synchronized (this)
 		{
 			// wait for pending requests
-			synchronized (this)
+			while (completed < requested)
 			{
 				try
 				{
@@ -372,88 +461,178 @@ public class CacheClient implements AutoCloseable
 		}
 
 		stopwatch.stop();
-		logger.info("Download completed in {}", stopwatch);
+		logger.info("Download completed in {}: {}", stopwatch, getStats());
 	}
 
-	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId, boolean flush)
+	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId)
 	{
 		if (state != ClientState.CONNECTED)
 		{
 			throw new IllegalStateException("Can't request files until connected!");
 		}
 
-		if (!flush)
+		long key = PendingFileRequest.key(index, fileId);
+		PendingFileRequest existing = requests.get(key);
+		if (existing != null)
 		{
-			while (requests.size() >= MAX_REQUESTS)
-			{
-				channel.flush();
-
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn("interrupted while waiting for requests", ex);
-				}
-			}
+			return existing.getFuture();
 		}
 
-		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
-		archiveRequest.setPriority(false);
-		archiveRequest.setIndex(index);
-		archiveRequest.setArchive(fileId);
-
 		CompletableFuture<FileResult> future = new CompletableFuture<>();
 		PendingFileRequest pf = new PendingFileRequest(index,
 			fileId, future);
 
-		logger.trace("Sending request for {}/{}", index, fileId);
-
-		requests.add(pf);
+		logger.trace("Queueing request for {}/{}", index, fileId);
 
-		if (!flush)
-		{
-			channel.write(archiveRequest);
-		}
-		else
+		if (!stopwatch.isRunning())
 		{
-			channel.writeAndFlush(archiveRequest);
+			stopwatch.start();
 		}
 
+		requests.put(key, pf);
+		queue.add(pf);
+		++requested;
+
+		dispatch();
+
 		return future;
 	}
 
-	private PendingFileRequest findRequest(int index, int file)
+	/**
+	 * Fill the request window of each connection from the queue. Must be
+	 * called with the client lock held.
+	 */
+	private void dispatch()
 	{
-		for (PendingFileRequest pr : requests)
+		for (CacheConnection connection : connections)
 		{
-			if (pr.getIndex() == index && pr.getArchive() == file)
+			if (queue.isEmpty())
+			{
+				return;
+			}
+
+			if (!connection.isConnected())
+			{
+				continue;
+			}
+
+			boolean written = false;
+			while (connection.getRequests().size() < MAX_REQUESTS && !queue.isEmpty())
 			{
-				return pr;
+				PendingFileRequest pr = queue.poll();
+
+				logger.trace("Sending request for {}/{}", pr.getIndex(), pr.getArchive());
+
+				connection.send(pr);
+				written = true;
+			}
+
+			if (written)
+			{
+				connection.getChannel().flush();
 			}
 		}
-		return null;
 	}
 
-	protected synchronized void onFileFinish(int index, int file, byte[] compressedData)
+	void onFileFinish(CacheConnection connection, int index, int file, byte[] compressedData)
 	{
-		PendingFileRequest pr = findRequest(index, file);
+		PendingFileRequest pr;
 
-		if (pr == null)
+		synchronized (this)
 		{
-			logger.warn("File download {}/{} with no pending request", index, file);
-			return;
-		}
+			long key = PendingFileRequest.key(index, file);
+			pr = connection.getRequests().remove(key);
+
+			if (pr == null)
+			{
+				logger.warn("File download {}/{} with no pending request", index, file);
+				return;
+			}
 
-		requests.remove(pr);
+			requests.remove(key);
+			bytes += compressedData.length;
 
-		notify();
+			dispatch();
+		}
 
 		FileResult result = new FileResult(index, file, compressedData);
 
 		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
 
 		pr.getFuture().complete(result);
+
+		finished(1);
+	}
+
+	void onConnectionClosed(CacheConnection connection)
+	{
+		CompletableFuture<HandshakeResponseType> handshakeFuture = connection.getHandshakeFuture();
+		if (handshakeFuture != null)
+		{
+			handshakeFuture.completeExceptionally(new IOException("connection closed during handshake"));
+		}
+
+		List<PendingFileRequest> failed;
+
+		synchronized (this)
+		{
+			// requeue the requests onto the remaining connections if there are any
+			Map<Long, PendingFileRequest> inFlight = connection.getRequests();
+			for (PendingFileRequest pr : inFlight.values())
+			{
+				queue.addFirst(pr);
+			}
+			inFlight.clear();
+
+			if (connections.stream().anyMatch(CacheConnection::isConnected))
+			{
+				if (!queue.isEmpty())
+				{
+					logger.warn("Connection closed, requeued requests onto remaining connections");
+					dispatch();
+				}
+				return;
+			}
+
+			state = null;
+
+			if (requests.isEmpty())
+			{
+				return;
+			}
+
+			logger.warn("All connections closed with {} pending requests", requests.size());
+
+			failed = new ArrayList<>(requests.values());
+			requests.clear();
+			queue.clear();
+		}
+
+		for (PendingFileRequest pr : failed)
+		{
+			pr.getFuture().completeExceptionally(new IOException("connection closed"));
+		}
+
+		finished(failed.size());
+	}
+
+	private void finished(int count)
+	{
+		DownloadStats stats;
+
+		synchronized (this)
+		{
+			completed += count;
+			notifyAll();
+
+			if (watcher == null)
+			{
+				return;
+			}
+
+			stats = getStats();
+		}
+
+		watcher.downloadProgress(stats);
 	}
 }
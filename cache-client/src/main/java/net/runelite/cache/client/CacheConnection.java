@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import io.netty.channel.Channel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
+
+/**
+ * A single connection to the update server. Requests in flight on the
+ * connection are tracked by index and archive so responses can be matched
+ * in constant time. All request state is guarded by the owning client.
+ */
+public class CacheConnection
+{
+	private final CacheClient client;
+	private final Map<Long, PendingFileRequest> requests = new HashMap<>();
+
+	private Channel channel;
+	private volatile ClientState state;
+	private CompletableFuture<HandshakeResponseType> handshakeFuture;
+
+	CacheConnection(CacheClient client)
+	{
+		this.client = client;
+	}
+
+	CacheClient getClient()
+	{
+		return client;
+	}
+
+	Channel getChannel()
+	{
+		return channel;
+	}
+
+	void setChannel(Channel channel)
+	{
+		this.channel = channel;
+	}
+
+	public ClientState getState()
+	{
+		return state;
+	}
+
+	void setState(ClientState state)
+	{
+		this.state = state;
+	}
+
+	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	{
+		return handshakeFuture;
+	}
+
+	void setHandshakeFuture(CompletableFuture<HandshakeResponseType> handshakeFuture)
+	{
+		this.handshakeFuture = handshakeFuture;
+	}
+
+	Map<Long, PendingFileRequest> getRequests()
+	{
+		return requests;
+	}
+
+	boolean isConnected()
+	{
+		return state == ClientState.CONNECTED && channel != null && channel.isActive();
+	}
+
+	/**
+	 * Writes the request to the channel without flushing it
+	 *
+	 * @param request
+	 */
+	void send(PendingFileRequest request)
+	{
+		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
+		archiveRequest.setPriority(false);
+		archiveRequest.setIndex(request.getIndex());
+		archiveRequest.setArchive(request.getArchive());
+
+		requests.put(request.getKey(), request);
+		channel.write(archiveRequest, channel.voidPromise());
+	}
+}
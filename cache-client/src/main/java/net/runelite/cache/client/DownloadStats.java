@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+public class DownloadStats
+{
+	private final int requested;
+	private final int completed;
+	private final int inFlight;
+	private final long bytes;
+	private final long elapsedNanos;
+
+	public DownloadStats(int requested, int completed, int inFlight, long bytes, long elapsedNanos)
+	{
+		this.requested = requested;
+		this.completed = completed;
+		this.inFlight = inFlight;
+		this.bytes = bytes;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Get the total number of files requested
+	 *
+	 * @return
+	 */
+	public int getRequested()
+	{
+		return requested;
+	}
+
+	/**
+	 * Get the number of files which have finished downloading
+	 *
+	 * @return
+	 */
+	public int getCompleted()
+	{
+		return completed;
+	}
+
+	/**
+	 * Get the number of requests sent to the server which have not yet
+	 * been responded to
+	 *
+	 * @return
+	 */
+	public int getInFlight()
+	{
+		return inFlight;
+	}
+
+	/**
+	 * Get the number of compressed bytes downloaded
+	 *
+	 * @return
+	 */
+	public long getBytes()
+	{
+		return bytes;
+	}
+
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	public double getBytesPerSecond()
+	{
+		return elapsedNanos > 0 ? bytes * 1_000_000_000d / elapsedNanos : 0d;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "DownloadStats{" + "requested=" + requested + ", completed=" + completed + ", inFlight=" + inFlight + ", bytes=" + bytes + ", elapsedNanos=" + elapsedNanos + '}';
+	}
+}
@@ -30,4 +30,13 @@ import net.runelite.cache.fs.Archive;
 public interface DownloadWatcher
 {
 	void downloadComplete(Archive archive, byte[] data);
+
+	/**
+	 * Called from the network threads after each file finishes downloading
+	 *
+	 * @param stats
+	 */
+	default void downloadProgress(DownloadStats stats)
+	{
+	}
 }
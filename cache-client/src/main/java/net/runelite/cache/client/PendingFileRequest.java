@@ -49,6 +49,16 @@ public class PendingFileRequest
 		return archive;
 	}
 
+	long getKey()
+	{
+		return key(index, archive);
+	}
+
+	static long key(int index, int archive)
+	{
+		return ((long) index << 32) | (archive & 0xFFFFFFFFL);
+	}
+
 	public CompletableFuture<FileResult> getFuture()
 	{
 		return future;
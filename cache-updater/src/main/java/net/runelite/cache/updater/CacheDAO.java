@@ -26,6 +26,7 @@ package net.runelite.cache.updater;
 
 import java.time.Instant;
 import java.util.List;
+import net.runelite.cache.index.FileData;
 import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
@@ -96,15 +97,39 @@ class CacheDAO
 		return entry;
 	}
 
-	public void associateArchiveToIndex(Connection con, ArchiveEntry archive, IndexEntry index)
+	public void associateArchivesToIndex(Connection con, List<ArchiveEntry> archives, IndexEntry index)
 	{
+		if (archives.isEmpty())
+		{
+			return;
+		}
+
 		if (associateArchive == null)
 		{
 			associateArchive = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)");
 		}
-		associateArchive
-			.addParameter("index", index.getId())
-			.addParameter("archive", archive.getId())
+		for (ArchiveEntry archive : archives)
+		{
+			associateArchive
+				.addParameter("index", index.getId())
+				.addParameter("archive", archive.getId())
+				.addToBatch();
+		}
+		associateArchive.executeBatch();
+	}
+
+	/**
+	 * Associate all of the archives of one index with another index
+	 *
+	 * @param con
+	 * @param from
+	 * @param to
+	 */
+	public void copyArchivesToIndex(Connection con, IndexEntry from, IndexEntry to)
+	{
+		con.createQuery("insert into index_archive (`index`, archive) select :to, archive from index_archive where `index` = :from")
+			.addParameter("to", to.getId())
+			.addParameter("from", from.getId())
 			.executeUpdate();
 	}
 
@@ -162,16 +187,25 @@ class CacheDAO
 		return entry;
 	}
 
-	public void associateFileToArchive(Connection con, ArchiveEntry archive, int fileId, int nameHash)
+	public void associateFilesToArchive(Connection con, ArchiveEntry archive, FileData[] files)
 	{
+		if (files == null || files.length == 0)
+		{
+			return;
+		}
+
 		if (associateFile == null)
 		{
 			associateFile = con.createQuery("insert into file (archive, fileId, nameHash) values (:archive, :fileId, :nameHash)");
 		}
-		associateFile
-			.addParameter("archive", archive.getId())
-			.addParameter("fileId", fileId)
-			.addParameter("nameHash", nameHash)
-			.executeUpdate();
+		for (FileData file : files)
+		{
+			associateFile
+				.addParameter("archive", archive.getId())
+				.addParameter("fileId", file.getId())
+				.addParameter("nameHash", file.getNameHash())
+				.addToBatch();
+		}
+		associateFile.executeBatch();
 	}
 }
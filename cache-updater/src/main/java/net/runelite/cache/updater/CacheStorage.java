@@ -25,24 +25,35 @@
 package net.runelite.cache.updater;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
-import net.runelite.cache.index.FileData;
 import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sql2o.Connection;
 import org.sql2o.ResultSetIterable;
 
 public class CacheStorage implements Storage
 {
+	private static final Logger logger = LoggerFactory.getLogger(CacheStorage.class);
+
 	private CacheEntry cacheEntry;
 	private final CacheDAO cacheDao;
 	private final Connection con;
 
+	// rows backing the loaded cache, keyed by index id and archive id, so
+	// unchanged archives can be saved by reference
+	private final Map<Integer, IndexEntry> indexEntries = new HashMap<>();
+	private final Map<Integer, Map<Integer, ArchiveEntry>> archiveEntries = new HashMap<>();
+
 	public CacheStorage(CacheEntry cacheEntry, CacheDAO cacheDao, Connection con)
 	{
 		this.cacheEntry = cacheEntry;
@@ -80,6 +91,10 @@ public class CacheStorage implements Storage
 			index.setCrc(indexEntry.getCrc());
 			index.setRevision(indexEntry.getRevision());
 
+			Map<Integer, ArchiveEntry> entries = new HashMap<>();
+			indexEntries.put(indexEntry.getIndexId(), indexEntry);
+			archiveEntries.put(indexEntry.getIndexId(), entries);
+
 			try (ResultSetIterable<ArchiveEntry> archives = cacheDao.findArchivesForIndex(con, indexEntry))
 			{
 				for (ArchiveEntry archiveEntry : archives)
@@ -94,6 +109,7 @@ public class CacheStorage implements Storage
 					archive.setCrc(archiveEntry.getCrc());
 					archive.setRevision(archiveEntry.getRevision());
 					archive.setHash(archiveEntry.getHash());
+					entries.put(archiveEntry.getArchiveId(), archiveEntry);
 
 					// File data is not necessary for cache updating
 				}
@@ -106,26 +122,65 @@ public class CacheStorage implements Storage
 	{
 		for (Index index : store.getIndexes())
 		{
+			IndexEntry previous = indexEntries.get(index.getId());
+			Map<Integer, ArchiveEntry> previousArchives = archiveEntries.getOrDefault(index.getId(), new HashMap<>());
+
 			IndexEntry entry = cacheDao.createIndex(con, cacheEntry, index.getId(), index.getCrc(), index.getRevision());
+			Map<Integer, ArchiveEntry> entries = new HashMap<>();
+
+			if (previous != null && previous.getCrc() == index.getCrc() && previous.getRevision() == index.getRevision()
+				&& previousArchives.size() == index.getArchives().size())
+			{
+				// the index is unchanged, so just reference the previous archive rows
+				cacheDao.copyArchivesToIndex(con, previous, entry);
+
+				indexEntries.put(index.getId(), entry);
+				logger.debug("Index {} is unchanged, reused {} archives", index.getId(), previousArchives.size());
+				continue;
+			}
+
+			int reused = 0, found = 0, created = 0;
+			List<ArchiveEntry> archives = new ArrayList<>(index.getArchives().size());
 
 			for (Archive archive : index.getArchives())
 			{
-				ArchiveEntry archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
-					archive.getNameHash(), archive.getCrc(), archive.getRevision());
-				if (archiveEntry == null)
+				ArchiveEntry archiveEntry = previousArchives.get(archive.getArchiveId());
+				if (archiveEntry != null && archiveEntry.getNameHash() == archive.getNameHash()
+					&& archiveEntry.getCrc() == archive.getCrc()
+					&& archiveEntry.getRevision() == archive.getRevision())
+				{
+					++reused;
+				}
+				else
 				{
-					byte[] hash = archive.getHash();
-					archiveEntry = cacheDao.createArchive(con, entry, archive.getArchiveId(),
-						archive.getNameHash(), archive.getCrc(), archive.getRevision(), hash);
+					archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
+						archive.getNameHash(), archive.getCrc(), archive.getRevision());
+					if (archiveEntry == null)
+					{
+						byte[] hash = archive.getHash();
+						archiveEntry = cacheDao.createArchive(con, entry, archive.getArchiveId(),
+							archive.getNameHash(), archive.getCrc(), archive.getRevision(), hash);
 
-					for (FileData file : archive.getFileData())
+						cacheDao.associateFilesToArchive(con, archiveEntry, archive.getFileData());
+						++created;
+					}
+					else
 					{
-						cacheDao.associateFileToArchive(con, archiveEntry, file.getId(), file.getNameHash());
+						++found;
 					}
 				}
 
-				cacheDao.associateArchiveToIndex(con, archiveEntry, entry);
+				archives.add(archiveEntry);
+				entries.put(archive.getArchiveId(), archiveEntry);
 			}
+
+			cacheDao.associateArchivesToIndex(con, archives, entry);
+
+			indexEntries.put(index.getId(), entry);
+			archiveEntries.put(index.getId(), entries);
+
+			logger.info("Index {}: {} archives, {} unchanged, {} previously seen, {} new",
+				index.getId(), archives.size(), reused, found, created);
 		}
 	}
 
@@ -30,12 +30,10 @@ import io.minio.errors.InvalidPortException;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import net.runelite.cache.client.CacheClient;
 import net.runelite.cache.client.IndexInfo;
 import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
@@ -63,6 +61,15 @@ public class CacheUpdater implements CommandLineRunner
 	@Value("${minio.bucket}")
 	private String minioBucket;
 
+	@Value("${cache.connections:4}")
+	private int connections;
+
+	@Value("${cache.upload.threads:8}")
+	private int uploadThreads;
+
+	@Value("${cache.upload.queue:64}")
+	private int uploadQueueSize;
+
 	@Autowired
 	public CacheUpdater(
 		@Qualifier("Runelite Cache SQL2O") Sql2o sql2o,
@@ -92,10 +99,19 @@ public class CacheUpdater implements CommandLineRunner
 			Store store = new Store(storage);
 			store.load();
 
-			ExecutorService executor = Executors.newSingleThreadExecutor();
+			CacheUploader uploader = new CacheUploader(new MinioObjectStore(minioClient, minioBucket), uploadThreads, uploadQueueSize);
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : index.getArchives())
+				{
+					if (archive.getHash() != null)
+					{
+						uploader.addKnown(archive.getHash());
+					}
+				}
+			}
 
-			CacheClient client = new CacheClient(store, rsVersion,
-				(Archive archive, byte[] data) -> executor.submit(new CacheUploader(minioClient, minioBucket, archive, data)));
+			CacheClient client = new CacheClient(store, rsVersion, connections, uploader);
 
 			client.connect();
 			HandshakeResponseType result = client.handshake().join();
@@ -115,21 +131,21 @@ public class CacheUpdater implements CommandLineRunner
 				return;
 			}
 
-			client.download();
+			// only fetch the indexes which have changed, archives in
+			// unchanged indexes are saved by reference to the previous cache
+			client.download(true);
+			logger.info("Download statistics: {}", client.getStats());
+
+			// ensure objects are added to the store before they become
+			// visible in the database, and that the uploaders have set the
+			// archive hashes before they are saved
+			uploader.finish();
 
 			CacheEntry newCache = created ? cache : cacheDao.createCache(con, rsVersion, Instant.now());
 
 			storage.setCacheEntry(newCache);
 			store.save();
 
-			// ensure objects are added to the store before they become
-			// visible in the database
-			executor.shutdown();
-			while (!executor.awaitTermination(1, TimeUnit.SECONDS))
-			{
-				logger.debug("Waiting for termination of executor...");
-			}
-
 			// commit database
 			con.commit();
 		}
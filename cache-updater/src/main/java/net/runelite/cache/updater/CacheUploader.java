@@ -26,71 +26,262 @@ package net.runelite.cache.updater;
 
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
-import io.minio.MinioClient;
-import io.minio.errors.ErrorResponseException;
-import io.minio.errors.InsufficientDataException;
-import io.minio.errors.InternalException;
-import io.minio.errors.InvalidArgumentException;
-import io.minio.errors.InvalidBucketNameException;
-import io.minio.errors.NoResponseException;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.runelite.cache.client.DownloadWatcher;
 import net.runelite.cache.fs.Archive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xmlpull.v1.XmlPullParserException;
 
-public class CacheUploader implements Runnable
+/**
+ * Uploads downloaded archives to the object store, keyed by the sha256 of
+ * their contents. Uploads are run on a fixed number of workers, and at most
+ * queueSize archives may be waiting to be uploaded before
+ * {@link #downloadComplete(Archive, byte[])} blocks, which in turn stops the
+ * cache client from reading more responses.
+ */
+public class CacheUploader implements DownloadWatcher
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheUploader.class);
 
-	private final MinioClient minioClient;
-	private final String minioBucket;
-	private final Archive archive;
-	private final byte[] data;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final long RETRY_DELAY_MS = 250;
+
+	private final ObjectStore objectStore;
+	private final ExecutorService executor;
+	private final Semaphore permits;
+
+	// hashes of objects known to be in the store
+	private final Set<String> known = ConcurrentHashMap.newKeySet();
+	// objects being stored, by hash, completed with whether they were stored
+	private final ConcurrentMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+	private final AtomicInteger uploaded = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicInteger retries = new AtomicInteger();
+	private final AtomicLong bytes = new AtomicLong();
 
-	public CacheUploader(MinioClient minioClient, String minioBucket, Archive archive, byte[] data)
+	public CacheUploader(ObjectStore objectStore, int threads, int queueSize)
 	{
-		this.minioClient = minioClient;
-		this.minioBucket = minioBucket;
-		this.archive = archive;
-		this.data = data;
+		this.objectStore = objectStore;
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.permits = new Semaphore(threads + queueSize);
+	}
+
+	/**
+	 * Mark an object as already being in the store, so it will not
+	 * be checked for or uploaded again
+	 *
+	 * @param hash
+	 */
+	public void addKnown(byte[] hash)
+	{
+		known.add(BaseEncoding.base16().encode(hash));
 	}
 
 	@Override
-	public void run()
+	public void downloadComplete(Archive archive, byte[] data)
+	{
+		try
+		{
+			permits.acquire();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			logger.warn("interrupted while waiting to upload archive {}/{}",
+				archive.getIndex().getId(), archive.getArchiveId());
+			failed.incrementAndGet();
+			return;
+		}
+
+		try
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					upload(archive, data);
+				}
+				finally
+				{
+					permits.release();
+				}
+			});
+		}
+		catch (RuntimeException ex)
+		{
+			permits.release();
+			throw ex;
+		}
+	}
+
+	private void upload(Archive archive, byte[] data)
 	{
 		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
 		String hashStr = BaseEncoding.base16().encode(hash);
 
 		archive.setHash(hash);
 
+		for (;;)
+		{
+			if (known.contains(hashStr))
+			{
+				skipped.incrementAndGet();
+				return;
+			}
+
+			CompletableFuture<Boolean> future = new CompletableFuture<>();
+			CompletableFuture<Boolean> existing = inFlight.putIfAbsent(hashStr, future);
+			if (existing == null)
+			{
+				boolean stored = false;
+				try
+				{
+					stored = store(archive, hashStr, data);
+					if (stored)
+					{
+						known.add(hashStr);
+					}
+				}
+				finally
+				{
+					inFlight.remove(hashStr, future);
+					future.complete(stored);
+				}
+				return;
+			}
+
+			// another worker is storing the same object, so wait for it
+			// and only try again if it failed
+			try
+			{
+				if (existing.get())
+				{
+					skipped.incrementAndGet();
+					return;
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				failed.incrementAndGet();
+				return;
+			}
+			catch (ExecutionException ex)
+			{
+				// not completed exceptionally
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+
+	/**
+	 * Store an object if it is not already in the store, retrying on errors
+	 *
+	 * @return whether the object is in the store
+	 */
+	private boolean store(Archive archive, String hashStr, byte[] data)
+	{
 		String path = new StringBuilder()
 			.append(hashStr, 0, 2)
 			.append('/')
 			.append(hashStr.substring(2))
 			.toString();
 
-		try
+		for (int attempt = 1; ; ++attempt)
 		{
-			try (InputStream in = minioClient.getObject(minioBucket, path))
+			try
 			{
-				return; // already exists
+				if (objectStore.exists(path))
+				{
+					skipped.incrementAndGet();
+				}
+				else
+				{
+					objectStore.put(path, data);
+					uploaded.incrementAndGet();
+					bytes.addAndGet(data.length);
+				}
+				return true;
 			}
-			catch (ErrorResponseException ex)
+			catch (IOException ex)
 			{
-				// doesn't exist
+				if (attempt >= MAX_ATTEMPTS)
+				{
+					logger.warn("unable to upload archive {}/{} to store", archive.getIndex().getId(), archive.getArchiveId(), ex);
+					failed.incrementAndGet();
+					return false;
+				}
+
+				logger.debug("unable to upload archive {}/{} to store, retrying (attempt {})",
+					archive.getIndex().getId(), archive.getArchiveId(), attempt, ex);
+				retries.incrementAndGet();
 			}
 
-			minioClient.putObject(minioBucket, path, new ByteArrayInputStream(data), data.length, "binary/octet-stream");
+			try
+			{
+				Thread.sleep(RETRY_DELAY_MS << (attempt - 1));
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				failed.incrementAndGet();
+				return false;
+			}
 		}
-		catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidArgumentException | InvalidBucketNameException | NoResponseException | IOException | InvalidKeyException | NoSuchAlgorithmException | XmlPullParserException ex)
+	}
+
+	/**
+	 * Wait for all submitted uploads to finish and stop the workers
+	 *
+	 * @throws InterruptedException
+	 */
+	public void finish() throws InterruptedException
+	{
+		executor.shutdown();
+		while (!executor.awaitTermination(1, TimeUnit.SECONDS))
 		{
-			logger.warn("unable to upload data to store", ex);
+			logger.debug("Waiting for uploads to finish...");
 		}
+
+		logger.info("Uploaded {} objects ({} bytes), skipped {} existing, {} failed, {} retries",
+			uploaded.get(), bytes.get(), skipped.get(), failed.get(), retries.get());
+	}
+
+	public int getUploaded()
+	{
+		return uploaded.get();
 	}
 
+	public int getSkipped()
+	{
+		return skipped.get();
+	}
+
+	public int getFailed()
+	{
+		return failed.get();
+	}
+
+	public int getRetries()
+	{
+		return retries.get();
+	}
+
+	public long getBytes()
+	{
+		return bytes.get();
+	}
 }
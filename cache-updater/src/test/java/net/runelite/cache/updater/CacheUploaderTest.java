@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import java.io.File;
+import java.nio.file.Files;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheUploaderTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testUpload() throws Exception
+	{
+		File dir = folder.newFolder();
+		FileObjectStore objectStore = new FileObjectStore(dir);
+		objectStore.failures = 2;
+
+		Index index = new Index(0);
+		CacheUploader uploader = new CacheUploader(objectStore, 4, 4);
+
+		byte[] known = "known".getBytes();
+		uploader.addKnown(Hashing.sha256().hashBytes(known).asBytes());
+
+		for (int i = 0; i < 100; ++i)
+		{
+			Archive archive = index.addArchive(i);
+			// every other archive has duplicate contents
+			byte[] data = ("archive " + (i / 2)).getBytes();
+			uploader.downloadComplete(archive, data);
+		}
+		uploader.downloadComplete(index.addArchive(100), known);
+
+		uploader.finish();
+
+		assertEquals(50, uploader.getUploaded());
+		assertEquals(51, uploader.getSkipped());
+		assertEquals(0, uploader.getFailed());
+		assertEquals(2, uploader.getRetries());
+		assertEquals(50, objectStore.puts);
+
+		for (Archive archive : index.getArchives())
+		{
+			byte[] data = archive.getArchiveId() == 100 ? known : ("archive " + (archive.getArchiveId() / 2)).getBytes();
+			byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+			assertArrayEquals(hash, archive.getHash());
+
+			if (archive.getArchiveId() != 100)
+			{
+				String hashStr = BaseEncoding.base16().encode(hash);
+				File file = new File(dir, hashStr.substring(0, 2) + "/" + hashStr.substring(2));
+				assertTrue(file.exists());
+				assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+			}
+		}
+	}
+
+	@Test
+	public void testDuplicateOfFailedUpload() throws Exception
+	{
+		File dir = folder.newFolder();
+		FileObjectStore objectStore = new FileObjectStore(dir);
+		// every attempt of the first upload fails
+		objectStore.failures = 5;
+
+		Index index = new Index(0);
+		CacheUploader uploader = new CacheUploader(objectStore, 2, 2);
+
+		byte[] data = "archive".getBytes();
+		uploader.downloadComplete(index.addArchive(0), data);
+		uploader.downloadComplete(index.addArchive(1), data);
+
+		uploader.finish();
+
+		// the duplicate is uploaded once the first upload has failed
+		assertEquals(1, uploader.getFailed());
+		assertEquals(1, uploader.getUploaded());
+		assertEquals(1, objectStore.puts);
+	}
+}
@@ -26,7 +26,9 @@ package net.runelite.cache;
 
 import java.io.File;
 import java.io.IOException;
+import net.runelite.cache.fs.ParallelArchiveLoader;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -40,6 +42,7 @@ public class Cache
 		Options options = new Options();
 
 		options.addOption("c", "cache", true, "cache base");
+		options.addOption("t", "threads", true, "number of threads to load the cache indexes and sprites with");
 
 		options.addOption(null, "items", true, "directory to dump items to");
 		options.addOption(null, "npcs", true, "directory to dump npcs to");
@@ -61,8 +64,38 @@ public class Cache
 
 		String cache = cmd.getOptionValue("cache");
 
-		Store store = loadStore(cache);
+		int threads;
+		try
+		{
+			threads = Integer.parseInt(cmd.getOptionValue("threads",
+				String.valueOf(Runtime.getRuntime().availableProcessors())));
+		}
+		catch (NumberFormatException ex)
+		{
+			System.err.println("Invalid number of threads: " + cmd.getOptionValue("threads"));
+			return;
+		}
 
+		if (threads < 1)
+		{
+			System.err.println("Number of threads must be positive");
+			return;
+		}
+
+		Store store = new Store(new DiskStorage(new File(cache), true));
+		try (ParallelArchiveLoader loader = new ParallelArchiveLoader(store, threads))
+		{
+			loader.load();
+			run(cmd, store, loader);
+		}
+		finally
+		{
+			store.close();
+		}
+	}
+
+	private static void run(CommandLine cmd, Store store, ParallelArchiveLoader loader) throws IOException
+	{
 		if (cmd.hasOption("items"))
 		{
 			String itemdir = cmd.getOptionValue("items");
@@ -113,7 +146,7 @@ public class Cache
 			}
 
 			System.out.println("Dumping sprites to " + spritedir);
-			dumpSprites(store, new File(spritedir));
+			dumpSprites(store, loader, new File(spritedir));
 		}
 		else
 		{
@@ -121,13 +154,8 @@ public class Cache
 		}
 	}
 
-	private static Store loadStore(String cache) throws IOException
-	{
-		Store store = new Store(new File(cache));
-		store.load();
-		return store;
-	}
-
+	// items, npcs and objects are each a single config archive, so there
+	// is nothing for the parallel archive loader to spread across threads
 	private static void dumpItems(Store store, File itemdir) throws IOException
 	{
 		ItemManager dumper = new ItemManager(store);
@@ -152,10 +180,10 @@ public class Cache
 		dumper.java(objectdir);
 	}
 
-	private static void dumpSprites(Store store, File spritedir) throws IOException
+	private static void dumpSprites(Store store, ParallelArchiveLoader loader, File spritedir) throws IOException
 	{
 		SpriteManager dumper = new SpriteManager(store);
-		dumper.load();
+		dumper.load(loader);
 		dumper.export(spritedir);
 	}
 }
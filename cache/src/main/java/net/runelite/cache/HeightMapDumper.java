@@ -39,6 +39,7 @@ public class HeightMapDumper
 
 	private static final int MAP_SCALE = 1;
 	private static final float MAX_HEIGHT = 2048f;
+	private static final int REGION_CACHE_SIZE = 256;
 
 	private final Store store;
 	private RegionLoader regionLoader;
@@ -50,7 +51,7 @@ public class HeightMapDumper
 
 	public void load() throws IOException
 	{
-		regionLoader = new RegionLoader(store);
+		regionLoader = new RegionLoader(store, REGION_CACHE_SIZE);
 		regionLoader.loadRegions();
 		regionLoader.calculateBounds();
 	}
@@ -28,9 +28,18 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
 import lombok.Getter;
 import lombok.Setter;
 import net.runelite.cache.definitions.AreaDefinition;
@@ -144,6 +153,179 @@ public class MapImageDumper
 		return image;
 	}
 
+	/**
+	 * Draw the map as a grid of tiles, each tile covering
+	 * {@code regionsPerTile} x {@code regionsPerTile} regions. Tiles are
+	 * rendered concurrently and written to {@code outDir} as
+	 * {@code <z>_<tileX>_<tileY>.png} as soon as they are done, so only
+	 * the tiles currently being rendered are held in memory. Tile 0,0 is
+	 * the north west most tile.
+	 *
+	 * @param outDir directory to write the tiles to
+	 * @param z plane
+	 * @param regionsPerTile width and height of each tile, in regions
+	 * @param threads number of tiles to render concurrently
+	 * @throws IOException
+	 */
+	public void drawMapTiles(File outDir, int z, int regionsPerTile, int threads) throws IOException
+	{
+		int regionsX = regionLoader.getHighestX().getRegionX() - regionLoader.getLowestX().getRegionX() + 1;
+		int regionsY = regionLoader.getHighestY().getRegionY() - regionLoader.getLowestY().getRegionY() + 1;
+
+		int tilesX = (regionsX + regionsPerTile - 1) / regionsPerTile;
+		int tilesY = (regionsY + regionsPerTile - 1) / regionsPerTile;
+
+		logger.info("Drawing {} x {} tiles of {} x {} regions on {} threads", tilesX, tilesY,
+			regionsPerTile, regionsPerTile, threads);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<?>> futures = new ArrayList<>();
+			for (int tileY = 0; tileY < tilesY; ++tileY)
+			{
+				for (int tileX = 0; tileX < tilesX; ++tileX)
+				{
+					if (!hasRegions(tileX, tileY, regionsPerTile))
+					{
+						continue;
+					}
+
+					final int tx = tileX, ty = tileY;
+					futures.add(executor.submit(() ->
+					{
+						BufferedImage image = drawMapTile(z, tx, ty, regionsPerTile);
+						File imageFile = new File(outDir, z + "_" + tx + "_" + ty + ".png");
+						ImageIO.write(image, "png", imageFile);
+						logger.debug("Wrote tile {}", imageFile);
+						return null;
+					}));
+				}
+			}
+
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			if (ex.getCause() instanceof IOException)
+			{
+				throw (IOException) ex.getCause();
+			}
+			throw new IOException(ex.getCause());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Draw a single tile of {@code regionsPerTile} x {@code regionsPerTile}
+	 * regions. Tile 0,0 is the north west most tile.
+	 */
+	public BufferedImage drawMapTile(int z, int tileX, int tileY, int regionsPerTile)
+	{
+		// region coordinates of the north west region of the tile
+		int regionX = regionLoader.getLowestX().getRegionX() + tileX * regionsPerTile;
+		int regionY = regionLoader.getHighestY().getRegionY() - tileY * regionsPerTile;
+
+		// objects and icons of neighboring regions can be drawn over the
+		// edge of their region, so draw the tile with a border of one
+		// region and crop it after
+		int pixelsX = (regionsPerTile + 2) * Region.X * MAP_SCALE;
+		int pixelsY = (regionsPerTile + 2) * Region.Y * MAP_SCALE;
+
+		BufferedImage image = new BufferedImage(pixelsX, pixelsY, BufferedImage.TYPE_INT_RGB);
+
+		List<Region> tileRegions = new ArrayList<>();
+		List<Region> borderRegions = new ArrayList<>();
+		for (int x = regionX - 1; x <= regionX + regionsPerTile; ++x)
+		{
+			for (int y = regionY - regionsPerTile; y <= regionY + 1; ++y)
+			{
+				if (x < 0 || y < 0)
+				{
+					continue;
+				}
+
+				Region region = regionLoader.findRegionForWorldCoordinates(x * Region.X, y * Region.Y);
+				if (region == null)
+				{
+					continue;
+				}
+
+				if (x < regionX || x >= regionX + regionsPerTile
+					|| y > regionY || y <= regionY - regionsPerTile)
+				{
+					borderRegions.add(region);
+				}
+				else
+				{
+					tileRegions.add(region);
+				}
+			}
+		}
+
+		for (Region region : tileRegions)
+		{
+			drawMap(image, tileDrawBaseX(region, regionX), tileDrawBaseY(region, regionY), z, region);
+		}
+
+		List<Region> regions = new ArrayList<>(tileRegions);
+		regions.addAll(borderRegions);
+
+		for (Region region : regions)
+		{
+			drawObjects(image, tileDrawBaseX(region, regionX), tileDrawBaseY(region, regionY), region, z);
+		}
+
+		for (Region region : regions)
+		{
+			drawMapIcons(image, tileDrawBaseX(region, regionX), tileDrawBaseY(region, regionY), region, z);
+		}
+
+		return image.getSubimage(Region.X * MAP_SCALE, Region.Y * MAP_SCALE,
+			regionsPerTile * Region.X * MAP_SCALE, regionsPerTile * Region.Y * MAP_SCALE);
+	}
+
+	private boolean hasRegions(int tileX, int tileY, int regionsPerTile)
+	{
+		int regionX = regionLoader.getLowestX().getRegionX() + tileX * regionsPerTile;
+		int regionY = regionLoader.getHighestY().getRegionY() - tileY * regionsPerTile;
+
+		for (int x = regionX; x < regionX + regionsPerTile; ++x)
+		{
+			for (int y = regionY - regionsPerTile + 1; y <= regionY; ++y)
+			{
+				if (y >= 0 && regionLoader.findRegionForWorldCoordinates(x * Region.X, y * Region.Y) != null)
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static int tileDrawBaseX(Region region, int regionX)
+	{
+		// + 1 for the border
+		return (region.getRegionX() - regionX + 1) * Region.X;
+	}
+
+	private static int tileDrawBaseY(Region region, int regionY)
+	{
+		// to pixel Y. the top most region has the greatest y, so invert
+		return (regionY - region.getRegionY() + 1) * Region.Y;
+	}
+
 	public BufferedImage drawRegion(Region region, int z)
 	{
 		int pixelsX = Region.X * MAP_SCALE;
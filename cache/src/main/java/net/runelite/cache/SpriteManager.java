@@ -31,12 +31,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import net.runelite.cache.definitions.SpriteDefinition;
 import net.runelite.cache.definitions.exporters.SpriteExporter;
 import net.runelite.cache.definitions.loaders.SpriteLoader;
 import net.runelite.cache.definitions.providers.SpriteProvider;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.ParallelArchiveLoader;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
@@ -58,14 +60,28 @@ public class SpriteManager implements SpriteProvider
 		for (Archive a : index.getArchives())
 		{
 			byte[] contents = a.decompress(storage.loadArchive(a));
+			load(a.getArchiveId(), contents);
+		}
+	}
 
-			SpriteLoader loader = new SpriteLoader();
-			SpriteDefinition[] defs = loader.load(a.getArchiveId(), contents);
+	public void load(ParallelArchiveLoader archiveLoader) throws IOException
+	{
+		Index index = store.getIndex(IndexType.SPRITES);
 
-			for (SpriteDefinition sprite : defs)
-			{
-				sprites.put(sprite.getId(), sprite);
-			}
+		for (Map.Entry<Integer, byte[]> entry : archiveLoader.decompress(index).entrySet())
+		{
+			load(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void load(int archiveId, byte[] contents)
+	{
+		SpriteLoader loader = new SpriteLoader();
+		SpriteDefinition[] defs = loader.load(archiveId, contents);
+
+		for (SpriteDefinition sprite : defs)
+		{
+			sprites.put(sprite.getId(), sprite);
 		}
 	}
 
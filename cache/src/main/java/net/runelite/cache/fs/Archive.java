@@ -170,6 +170,7 @@ public class Archive
 	public void setNameHash(int nameHash)
 	{
 		this.nameHash = nameHash;
+		index.nameHashChanged();
 	}
 
 	public int getCrc()
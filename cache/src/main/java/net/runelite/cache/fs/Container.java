@@ -27,6 +27,7 @@ package net.runelite.cache.fs;
 import static com.google.common.primitives.Bytes.concat;
 import com.google.common.primitives.Ints;
 import java.io.IOException;
+import java.util.Arrays;
 import net.runelite.cache.fs.jagex.CompressionType;
 import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
@@ -41,6 +42,17 @@ public class Container
 {
 	private static final Logger logger = LoggerFactory.getLogger(Container.class);
 
+	/**
+	 * Largest decompressed length accepted, well above anything in the cache
+	 */
+	private static final int MAX_DECOMPRESSED_LENGTH = 32 * 1024 * 1024;
+	/**
+	 * Largest ratio deflate can compress data by
+	 */
+	private static final int MAX_DEFLATE_RATIO = 1032;
+
+	private static final ThreadLocal<byte[]> DECRYPT_BUFFER = ThreadLocal.withInitial(() -> new byte[0]);
+
 	public byte[] data;
 	public int compression; // compression
 	public int revision;
@@ -101,87 +113,54 @@ public class Container
 			throw new RuntimeException("Invalid data");
 		}
 
+		// compressed data is prefixed with the decompressed length
+		int dataLength = compression == CompressionType.NONE ? compressedLength : compressedLength + 4;
+		if (stream.remaining() < dataLength)
+		{
+			throw new IOException("Short container data, expected " + dataLength + " bytes but got " + stream.remaining());
+		}
+
 		Crc32 crc32 = new Crc32();
-		crc32.update(b, 0, 5); // compression + length
+		crc32.update(b, 0, 5 + dataLength); // compression + length + data
+
+		// the data is read in place unless it has to be decrypted, in which
+		// case it is decrypted into this thread's scratch buffer
+		byte[] buf = b;
+		int offset = 5;
+		if (keys != null)
+		{
+			buf = decryptBuffer(dataLength);
+			new Xtea(keys).decrypt(b, 5, dataLength, buf);
+			offset = 0;
+		}
 
-		byte[] data;
 		int revision = -1;
+		stream.skip(dataLength);
+		if (stream.remaining() >= 2)
+		{
+			revision = stream.readUnsignedShort();
+			assert revision != -1;
+		}
+
+		byte[] data;
 		switch (compression)
 		{
 			case CompressionType.NONE:
-			{
-				byte[] encryptedData = new byte[compressedLength];
-				stream.readBytes(encryptedData, 0, compressedLength);
-
-				crc32.update(encryptedData, 0, compressedLength);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
-
-				data = decryptedData;
-
+				data = Arrays.copyOfRange(buf, offset, offset + compressedLength);
 				break;
-			}
 			case CompressionType.BZ2:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
-
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = BZip2.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
-				{
-					return null;
-				}
-
-				assert data.length == decompressedLength;
-
+				// check the magic before trusting the length, which is garbage
+				// if the data was decrypted with the wrong keys
+				BZip2.checkMagic(buf, offset + 4, compressedLength);
+				data = new byte[readDecompressedLength(buf, offset, MAX_DECOMPRESSED_LENGTH)];
+				BZip2.decompress(buf, offset + 4, compressedLength, data);
 				break;
-			}
 			case CompressionType.GZ:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
-
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = GZip.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
-				{
-					return null;
-				}
-
-				assert data.length == decompressedLength;
-
+				GZip.checkMagic(buf, offset + 4, compressedLength);
+				data = new byte[readDecompressedLength(buf, offset,
+					Math.min(MAX_DECOMPRESSED_LENGTH, (long) compressedLength * MAX_DEFLATE_RATIO))];
+				GZip.decompress(buf, offset + 4, compressedLength, data);
 				break;
-			}
 			default:
 				throw new RuntimeException("Unknown decompression type");
 		}
@@ -192,15 +171,25 @@ public class Container
 		return container;
 	}
 
-	private static byte[] decrypt(byte[] data, int length, int[] keys)
+	private static int readDecompressedLength(byte[] buf, int offset, long maxLength) throws IOException
 	{
-		if (keys == null)
+		int decompressedLength = Ints.fromBytes(buf[offset], buf[offset + 1], buf[offset + 2], buf[offset + 3]);
+		if (decompressedLength < 0 || decompressedLength > maxLength)
 		{
-			return data;
+			throw new IOException("Invalid decompressed length " + decompressedLength);
 		}
+		return decompressedLength;
+	}
 
-		Xtea xtea = new Xtea(keys);
-		return xtea.decrypt(data, length);
+	private static byte[] decryptBuffer(int length)
+	{
+		byte[] buf = DECRYPT_BUFFER.get();
+		if (buf.length < length)
+		{
+			buf = new byte[length];
+			DECRYPT_BUFFER.set(buf);
+		}
+		return buf;
 	}
 
 	private static byte[] encrypt(byte[] data, int length, int[] keys)
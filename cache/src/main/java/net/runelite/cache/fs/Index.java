@@ -25,7 +25,9 @@
 package net.runelite.cache.fs;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.FileData;
@@ -47,6 +49,8 @@ public class Index
 	private int compression; // compression method of this index's data in 255
 
 	private final List<Archive> archives = new ArrayList<>();
+	private final Map<Integer, Archive> archiveMap = new HashMap<>();
+	private volatile Map<Integer, Archive> archiveNameMap; // lazily built, archive name hashes are set after they are added
 
 	public Index(int id)
 	{
@@ -154,32 +158,37 @@ public class Index
 	{
 		Archive archive = new Archive(this, id);
 		this.archives.add(archive);
+		archiveMap.putIfAbsent(id, archive);
+		archiveNameMap = null;
 		return archive;
 	}
 
 	public Archive getArchive(int id)
 	{
-		for (Archive a : archives)
-		{
-			if (a.getArchiveId() == id)
-			{
-				return a;
-			}
-		}
-		return null;
+		return archiveMap.get(id);
 	}
 
 	public Archive findArchiveByName(String name)
 	{
 		int hash = Djb2.hash(name);
-		for (Archive a : archives)
+
+		Map<Integer, Archive> nameMap = archiveNameMap;
+		if (nameMap == null)
 		{
-			if (a.getNameHash() == hash)
+			nameMap = new HashMap<>(archives.size());
+			for (Archive a : archives)
 			{
-				return a;
+				nameMap.putIfAbsent(a.getNameHash(), a);
 			}
+			archiveNameMap = nameMap;
 		}
-		return null;
+
+		return nameMap.get(hash);
+	}
+
+	void nameHashChanged()
+	{
+		archiveNameMap = null;
 	}
 
 	public IndexData toIndexData()
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads, decrypts, decompresses and splits the archives of a store on a
+ * fork join pool. The store's storage must support concurrent calls to
+ * {@link Storage#loadArchive(Archive)}, such as a read only
+ * {@link DiskStorage}.
+ */
+public class ParallelArchiveLoader implements Closeable
+{
+	private static final Logger logger = LoggerFactory.getLogger(ParallelArchiveLoader.class);
+
+	private final Store store;
+	private final ForkJoinPool pool;
+
+	public ParallelArchiveLoader(Store store)
+	{
+		this(store, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelArchiveLoader(Store store, int parallelism)
+	{
+		Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+		this.store = store;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	@Override
+	public void close()
+	{
+		pool.shutdown();
+	}
+
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Load the index data of the store, decoding the indexes concurrently
+	 * if the storage supports it.
+	 *
+	 * @throws IOException
+	 */
+	public void load() throws IOException
+	{
+		Storage storage = store.getStorage();
+		if (!(storage instanceof DiskStorage))
+		{
+			storage.load(store);
+			return;
+		}
+
+		DiskStorage diskStorage = (DiskStorage) storage;
+		submit(() ->
+		{
+			store.getIndexes().parallelStream()
+				.forEach(index -> run(() -> diskStorage.loadIndex(index)));
+			return null;
+		});
+	}
+
+	/**
+	 * Load and decompress every archive of an index
+	 *
+	 * @param index index
+	 * @return decompressed archive contents by archive id, in archive order
+	 * @throws IOException
+	 */
+	public Map<Integer, byte[]> decompress(Index index) throws IOException
+	{
+		return decompress(index, archive -> null);
+	}
+
+	/**
+	 * Load, decrypt and decompress every archive of an index
+	 *
+	 * @param index index
+	 * @param keys function providing the xtea keys of an archive, or null
+	 * @return decompressed archive contents by archive id, in archive order.
+	 * Archives which are missing from storage or can not be decrypted map to null.
+	 * @throws IOException
+	 */
+	public Map<Integer, byte[]> decompress(Index index, Function<Archive, int[]> keys) throws IOException
+	{
+		return map(index, archive ->
+		{
+			byte[] data = store.getStorage().loadArchive(archive);
+			return archive.decompress(data, keys.apply(archive));
+		});
+	}
+
+	/**
+	 * Load every archive of an index and split them into their files
+	 *
+	 * @param index index
+	 * @return archive files by archive id, in archive order
+	 * @throws IOException
+	 */
+	public Map<Integer, ArchiveFiles> getFiles(Index index) throws IOException
+	{
+		return getFiles(index, archive -> null);
+	}
+
+	/**
+	 * Load and decrypt every archive of an index and split them into their
+	 * files. Archives which are missing from storage or can not be decrypted
+	 * are skipped.
+	 *
+	 * @param index index
+	 * @param keys function providing the xtea keys of an archive, or null
+	 * @return archive files by archive id, in archive order
+	 * @throws IOException
+	 */
+	public Map<Integer, ArchiveFiles> getFiles(Index index, Function<Archive, int[]> keys) throws IOException
+	{
+		Map<Integer, ArchiveFiles> files = map(index, archive ->
+		{
+			byte[] data = store.getStorage().loadArchive(archive);
+			if (data == null)
+			{
+				logger.debug("Unable to load archive {}/{}", index.getId(), archive.getArchiveId());
+				return null;
+			}
+
+			return archive.getFiles(data, keys.apply(archive));
+		});
+		files.values().removeIf(f -> f == null);
+		return files;
+	}
+
+	private <T> Map<Integer, T> map(Index index, ArchiveFunction<T> function) throws IOException
+	{
+		List<Archive> archives = index.getArchives();
+		List<T> results = submit(() -> archives.parallelStream()
+			.map(archive -> call(() -> function.apply(archive)))
+			.collect(Collectors.toList()));
+
+		Map<Integer, T> map = new LinkedHashMap<>(archives.size());
+		for (int i = 0; i < archives.size(); ++i)
+		{
+			map.put(archives.get(i).getArchiveId(), results.get(i));
+		}
+		return map;
+	}
+
+	private <T> T submit(Callable<T> task) throws IOException
+	{
+		try
+		{
+			return pool.submit(task).get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			Throwables.throwIfUnchecked(cause);
+			throw new IOException(cause);
+		}
+	}
+
+	private static void run(IORunnable runnable)
+	{
+		call(() ->
+		{
+			runnable.run();
+			return null;
+		});
+	}
+
+	private static <T> T call(IOCallable<T> callable)
+	{
+		try
+		{
+			return callable.call();
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ArchiveFunction<T>
+	{
+		T apply(Archive archive) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface IORunnable
+	{
+		void run() throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface IOCallable<T>
+	{
+		T call() throws IOException;
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * A Storage that stores the cache as one binary file per index, in the
+ * same layout as {@link FlatStorage}. Each file begins with the index
+ * information and a fixed size table of archives, followed by the
+ * variable length data of each archive. Files are memory mapped on load
+ * and archive contents are only copied out when they are loaded.
+ * <p>
+ * Index files are laid out as:
+ * <pre>
+ * int magic, byte version
+ * int protocol, int revision, int compression, int crc, byte named
+ * int archive count
+ * archive table, sorted by archive id:
+ *   int id, int name hash, int revision, int crc, int compression,
+ *   int hash length, int file count, int contents length (-1 if none),
+ *   int data offset
+ * archive data, at each archive's data offset:
+ *   hash, file count * (int id, int name hash), contents
+ * </pre>
+ */
+public class BinaryFlatStorage implements Storage
+{
+	protected static final String EXTENSION = ".bflatcache";
+
+	private static final int MAGIC = 0x52464c43; // RFLC
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 + 1 + 4 * 4 + 1 + 4;
+	private static final int ARCHIVE_ENTRY_SIZE = 9 * 4;
+
+	private final File directory;
+	private final Map<Long, ByteBuffer> data = new HashMap<>();
+
+	public BinaryFlatStorage(File directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * Convert a cache stored in the text {@link FlatStorage} format to the
+	 * binary format
+	 *
+	 * @param flatDirectory directory of the text flat cache
+	 * @param directory directory to write the binary flat cache to
+	 * @throws IOException
+	 */
+	public static void importFlatStorage(File flatDirectory, File directory) throws IOException
+	{
+		try (Store store = new Store(new FlatStorage(flatDirectory)))
+		{
+			store.load();
+			new BinaryFlatStorage(directory).save(store);
+		}
+	}
+
+	/**
+	 * Convert a cache stored in the binary format to the text
+	 * {@link FlatStorage} format, eg. to produce diffs
+	 *
+	 * @param directory directory of the binary flat cache
+	 * @param flatDirectory directory to write the text flat cache to
+	 * @throws IOException
+	 */
+	public static void exportFlatStorage(File directory, File flatDirectory) throws IOException
+	{
+		try (Store store = new Store(new BinaryFlatStorage(directory)))
+		{
+			store.load();
+			new FlatStorage(flatDirectory).save(store);
+		}
+	}
+
+	@Override
+	public void init(Store store) throws IOException
+	{
+		String[] idxs = directory.list((dir, name) -> name.endsWith(EXTENSION));
+		if (idxs == null)
+		{
+			throw new IOException("unable to list " + directory);
+		}
+
+		for (String idx : idxs)
+		{
+			int id = Integer.parseInt(idx.substring(0, idx.length() - EXTENSION.length()));
+			store.addIndex(id);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		data.clear();
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		for (Index idx : store.getIndexes())
+		{
+			File file = new File(directory, idx.getId() + EXTENSION);
+
+			MappedByteBuffer buffer;
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+			{
+				// the mapping remains valid after the channel is closed
+				buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			}
+
+			try
+			{
+				loadIndex(idx, buffer);
+			}
+			catch (RuntimeException e)
+			{
+				throw new IOException("error reading binary flatcache " + file, e);
+			}
+		}
+	}
+
+	private void loadIndex(Index idx, ByteBuffer buffer) throws IOException
+	{
+		if (buffer.getInt(0) != MAGIC)
+		{
+			throw new IOException("invalid magic");
+		}
+
+		int version = buffer.get(4) & 0xFF;
+		if (version != VERSION)
+		{
+			throw new IOException("unsupported version " + version);
+		}
+
+		idx.setProtocol(buffer.getInt(5));
+		idx.setRevision(buffer.getInt(9));
+		idx.setCompression(buffer.getInt(13));
+		idx.setCrc(buffer.getInt(17));
+		idx.setNamed(buffer.get(21) != 0);
+
+		int archiveCount = buffer.getInt(22);
+		for (int i = 0; i < archiveCount; ++i)
+		{
+			int entry = HEADER_SIZE + i * ARCHIVE_ENTRY_SIZE;
+
+			Archive archive = idx.addArchive(buffer.getInt(entry));
+			archive.setNameHash(buffer.getInt(entry + 4));
+			archive.setRevision(buffer.getInt(entry + 8));
+			archive.setCrc(buffer.getInt(entry + 12));
+			archive.setCompression(buffer.getInt(entry + 16));
+
+			int hashLength = buffer.getInt(entry + 20);
+			int fileCount = buffer.getInt(entry + 24);
+			int contentsLength = buffer.getInt(entry + 28);
+			int offset = buffer.getInt(entry + 32);
+
+			if (hashLength > 0)
+			{
+				byte[] hash = new byte[hashLength];
+				ByteBuffer b = buffer.duplicate();
+				b.position(offset);
+				b.get(hash);
+				archive.setHash(hash);
+			}
+			offset += hashLength;
+
+			FileData[] fileData = new FileData[fileCount];
+			for (int j = 0; j < fileCount; ++j)
+			{
+				FileData fd = fileData[j] = new FileData();
+				fd.setId(buffer.getInt(offset));
+				fd.setNameHash(buffer.getInt(offset + 4));
+				offset += 8;
+			}
+			archive.setFileData(fileData);
+
+			if (contentsLength >= 0)
+			{
+				ByteBuffer contents = buffer.duplicate();
+				contents.position(offset);
+				contents.limit(offset + contentsLength);
+				data.put(key(archive), contents.slice());
+			}
+		}
+	}
+
+	@Override
+	public void save(Store store) throws IOException
+	{
+		store.getIndexes().sort(Comparator.comparing(Index::getId));
+		for (Index idx : store.getIndexes())
+		{
+			idx.getArchives().sort(Comparator.comparing(Archive::getArchiveId));
+
+			// load all of the contents first, in case they come from this storage
+			byte[][] contents = new byte[idx.getArchives().size()][];
+			for (int i = 0; i < contents.length; ++i)
+			{
+				contents[i] = store.getStorage().loadArchive(idx.getArchives().get(i));
+			}
+
+			// write to a temporary file first, as the existing file may be mapped
+			File file = new File(directory, idx.getId() + EXTENSION);
+			File tmp = new File(directory, idx.getId() + EXTENSION + ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))))
+			{
+				out.writeInt(MAGIC);
+				out.writeByte(VERSION);
+				out.writeInt(idx.getProtocol());
+				out.writeInt(idx.getRevision());
+				out.writeInt(idx.getCompression());
+				out.writeInt(idx.getCrc());
+				out.writeBoolean(idx.isNamed());
+				out.writeInt(idx.getArchives().size());
+
+				int offset = HEADER_SIZE + idx.getArchives().size() * ARCHIVE_ENTRY_SIZE;
+				for (int i = 0; i < contents.length; ++i)
+				{
+					Archive archive = idx.getArchives().get(i);
+					byte[] hash = archive.getHash();
+					FileData[] fileData = archive.getFileData();
+
+					out.writeInt(archive.getArchiveId());
+					out.writeInt(archive.getNameHash());
+					out.writeInt(archive.getRevision());
+					out.writeInt(archive.getCrc());
+					out.writeInt(archive.getCompression());
+					out.writeInt(hash != null ? hash.length : 0);
+					out.writeInt(fileData.length);
+					out.writeInt(contents[i] != null ? contents[i].length : -1);
+					out.writeInt(offset);
+
+					offset += (hash != null ? hash.length : 0)
+						+ fileData.length * 8
+						+ (contents[i] != null ? contents[i].length : 0);
+				}
+
+				for (int i = 0; i < contents.length; ++i)
+				{
+					Archive archive = idx.getArchives().get(i);
+					if (archive.getHash() != null)
+					{
+						out.write(archive.getHash());
+					}
+
+					for (FileData fd : archive.getFileData())
+					{
+						out.writeInt(fd.getId());
+						out.writeInt(fd.getNameHash());
+					}
+
+					if (contents[i] != null)
+					{
+						out.write(contents[i]);
+					}
+				}
+			}
+
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		ByteBuffer contents = data.get(key(archive));
+		if (contents == null)
+		{
+			return null;
+		}
+
+		// duplicate so concurrent loads do not share a position
+		contents = contents.duplicate();
+		byte[] bytes = new byte[contents.remaining()];
+		contents.get(bytes);
+		return bytes;
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] bytes) throws IOException
+	{
+		data.put(key(archive), ByteBuffer.wrap(bytes));
+	}
+
+	private static long key(Archive archive)
+	{
+		return (long) archive.getIndex().getId() << 32 | archive.getArchiveId();
+	}
+}
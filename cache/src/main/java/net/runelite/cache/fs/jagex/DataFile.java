@@ -30,6 +30,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,10 +42,47 @@ public class DataFile implements Closeable
 	private static final int SECTOR_SIZE = 520;
 
 	private final RandomAccessFile dat;
+	private final MappedByteBuffer mapped;
 
 	public DataFile(File file) throws FileNotFoundException
 	{
 		this.dat = new RandomAccessFile(file, "rw");
+		this.mapped = null;
+	}
+
+	/**
+	 * Open a data file, optionally mapping it read only into memory. A
+	 * mapped data file does not need to seek, so reads of it are safe to
+	 * perform concurrently from many threads.
+	 *
+	 * @param file data file
+	 * @param readOnly whether to map the file read only
+	 * @throws IOException
+	 */
+	public DataFile(File file, boolean readOnly) throws IOException
+	{
+		if (!readOnly)
+		{
+			this.dat = new RandomAccessFile(file, "rw");
+			this.mapped = null;
+			return;
+		}
+
+		this.dat = new RandomAccessFile(file, "r");
+
+		long length = dat.length();
+		if (length > Integer.MAX_VALUE)
+		{
+			dat.close();
+			throw new IOException("data file is too large to map: " + length);
+		}
+
+		this.mapped = dat.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+	}
+
+	public boolean isReadOnly()
+	{
+		return mapped != null;
 	}
 
 	@Override
@@ -54,9 +93,18 @@ public class DataFile implements Closeable
 
 	public void clear() throws IOException
 	{
+		checkWritable();
 		dat.setLength(0L);
 	}
 
+	private void checkWritable() throws IOException
+	{
+		if (mapped != null)
+		{
+			throw new IOException("data file is read only");
+		}
+	}
+
 	/**
 	 *
 	 * @param indexId expected index of archive of contents being read
@@ -67,6 +115,19 @@ public class DataFile implements Closeable
 	 * @throws IOException
 	 */
 	public byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
+	{
+		if (mapped != null)
+		{
+			return readMapped(indexId, archiveId, sector, size);
+		}
+
+		synchronized (this)
+		{
+			return readFile(indexId, archiveId, sector, size);
+		}
+	}
+
+	private byte[] readFile(int indexId, int archiveId, int sector, int size) throws IOException
 	{
 		if (sector <= 0L || dat.length() / SECTOR_SIZE < (long) sector)
 		{
@@ -169,8 +230,96 @@ public class DataFile implements Closeable
 		return buffer.array();
 	}
 
-	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData) throws IOException
+	private byte[] readMapped(int indexId, int archiveId, int sector, int size)
 	{
+		// the buffer position is not shared, so concurrent reads do not interfere
+		ByteBuffer dat = mapped.duplicate();
+		int sectors = dat.limit() / SECTOR_SIZE;
+
+		if (sector <= 0 || sectors < sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", dat.limit(), sector);
+			return null;
+		}
+
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+		byte[] buffer = new byte[size];
+
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
+		{
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			int position = SECTOR_SIZE * sector;
+
+			int dataBlockSize = size - readBytesCount;
+			if (dataBlockSize > SECTOR_SIZE - headerSize)
+			{
+				dataBlockSize = SECTOR_SIZE - headerSize;
+			}
+
+			if (position + headerSize + dataBlockSize > dat.limit())
+			{
+				logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+				return null;
+			}
+
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (headerSize == 10)
+			{
+				currentArchive = dat.getInt(position);
+				currentPart = dat.getShort(position + 4) & 0xFFFF;
+				nextSector = ((dat.get(position + 6) & 0xFF) << 16)
+					| ((dat.get(position + 7) & 0xFF) << 8)
+					| (dat.get(position + 8) & 0xFF);
+				currentIndex = dat.get(position + 9) & 0xFF;
+			}
+			else
+			{
+				currentArchive = dat.getShort(position) & 0xFFFF;
+				currentPart = dat.getShort(position + 2) & 0xFFFF;
+				nextSector = ((dat.get(position + 4) & 0xFF) << 16)
+					| ((dat.get(position + 5) & 0xFF) << 8)
+					| (dat.get(position + 6) & 0xFF);
+				currentIndex = dat.get(position + 7) & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (nextSector < 0 || sectors < nextSector)
+			{
+				logger.warn("Invalid next sector");
+				return null;
+			}
+
+			dat.position(position + headerSize);
+			dat.get(buffer, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
+		}
+
+		return buffer;
+	}
+
+	public synchronized DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData) throws IOException
+	{
+		checkWritable();
+
 		int sector;
 		int startSector;
 
@@ -26,10 +26,9 @@ package net.runelite.cache.fs.jagex;
 
 import com.google.common.primitives.Ints;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.Index;
@@ -49,17 +48,38 @@ public class DiskStorage implements Storage
 	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
 
 	private final File folder;
+	private final boolean readOnly;
 
 	private final DataFile data;
 	private final IndexFile index255;
-	private final List<IndexFile> indexFiles = new ArrayList<>();
+	private final List<IndexFile> indexFiles = new CopyOnWriteArrayList<>();
 
 	public DiskStorage(File folder) throws IOException
+	{
+		this(folder, false);
+	}
+
+	/**
+	 * Create a disk storage for the cache in the given folder. A read only
+	 * storage maps the data and index files into memory, allowing archives
+	 * to be loaded concurrently with {@link #loadArchive(Archive)}.
+	 *
+	 * @param folder cache folder
+	 * @param readOnly whether to map the cache read only
+	 * @throws IOException
+	 */
+	public DiskStorage(File folder, boolean readOnly) throws IOException
 	{
 		this.folder = folder;
+		this.readOnly = readOnly;
+
+		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT), readOnly);
+		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"), readOnly);
+	}
 
-		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT));
-		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+	public boolean isReadOnly()
+	{
+		return readOnly;
 	}
 
 	@Override
@@ -85,7 +105,29 @@ public class DiskStorage implements Storage
 		}
 	}
 
-	private IndexFile getIndex(int i) throws FileNotFoundException
+	private IndexFile getIndex(int i) throws IOException
+	{
+		IndexFile indexFile = findIndex(i);
+		if (indexFile != null)
+		{
+			return indexFile;
+		}
+
+		synchronized (indexFiles)
+		{
+			indexFile = findIndex(i);
+			if (indexFile != null)
+			{
+				return indexFile;
+			}
+
+			indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i), readOnly);
+			indexFiles.add(indexFile);
+			return indexFile;
+		}
+	}
+
+	private IndexFile findIndex(int i)
 	{
 		for (IndexFile indexFile : indexFiles)
 		{
@@ -94,10 +136,7 @@ public class DiskStorage implements Storage
 				return indexFile;
 			}
 		}
-
-		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i));
-		indexFiles.add(indexFile);
-		return indexFile;
+		return null;
 	}
 
 	@Override
@@ -116,7 +155,7 @@ public class DiskStorage implements Storage
 		return indexData;
 	}
 
-	private void loadIndex(Index index) throws IOException
+	public void loadIndex(Index index) throws IOException
 	{
 		logger.trace("Loading index {}", index.getId());
 
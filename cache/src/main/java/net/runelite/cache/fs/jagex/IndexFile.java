@@ -29,6 +29,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +44,7 @@ public class IndexFile implements Closeable
 	private final int indexFileId;
 	private final File file;
 	private final RandomAccessFile idx;
+	private final MappedByteBuffer mapped;
 	private final byte[] buffer = new byte[INDEX_ENTRY_LEN];
 
 	public IndexFile(int indexFileId, File file) throws FileNotFoundException
@@ -49,6 +52,32 @@ public class IndexFile implements Closeable
 		this.indexFileId = indexFileId;
 		this.file = file;
 		this.idx = new RandomAccessFile(file, "rw");
+		this.mapped = null;
+	}
+
+	/**
+	 * Open an index file, optionally mapping it read only into memory.
+	 * Reads of a mapped index file do not lock.
+	 *
+	 * @param indexFileId index id
+	 * @param file index file
+	 * @param readOnly whether to map the file read only
+	 * @throws IOException
+	 */
+	public IndexFile(int indexFileId, File file, boolean readOnly) throws IOException
+	{
+		this.indexFileId = indexFileId;
+		this.file = file;
+
+		if (!readOnly)
+		{
+			this.idx = new RandomAccessFile(file, "rw");
+			this.mapped = null;
+			return;
+		}
+
+		this.idx = new RandomAccessFile(file, "r");
+		this.mapped = idx.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, idx.length());
 	}
 
 	@Override
@@ -59,9 +88,18 @@ public class IndexFile implements Closeable
 
 	public void clear() throws IOException
 	{
+		checkWritable();
 		idx.setLength(0L);
 	}
 
+	private void checkWritable() throws IOException
+	{
+		if (mapped != null)
+		{
+			throw new IOException("index file " + indexFileId + " is read only");
+		}
+	}
+
 	@Override
 	public int hashCode()
 	{
@@ -96,6 +134,8 @@ public class IndexFile implements Closeable
 
 	public synchronized void write(IndexEntry entry) throws IOException
 	{
+		checkWritable();
+
 		idx.seek(entry.getId() * INDEX_ENTRY_LEN);
 
 		buffer[0] = (byte) (entry.getLength() >> 16);
@@ -109,18 +149,39 @@ public class IndexFile implements Closeable
 		idx.write(buffer);
 	}
 
-	public synchronized IndexEntry read(int id) throws IOException
+	public IndexEntry read(int id) throws IOException
 	{
-		idx.seek(id * INDEX_ENTRY_LEN);
-		int i = idx.read(buffer);
-		if (i != INDEX_ENTRY_LEN)
+		int length;
+		int sector;
+
+		if (mapped != null)
 		{
-			logger.debug("short read for id {} on index {}: {}", id, indexFileId, i);
-			return null;
+			int position = id * INDEX_ENTRY_LEN;
+			if (position < 0 || position + INDEX_ENTRY_LEN > mapped.limit())
+			{
+				logger.debug("short read for id {} on index {}", id, indexFileId);
+				return null;
+			}
+
+			length = ((mapped.get(position) & 0xFF) << 16) | ((mapped.get(position + 1) & 0xFF) << 8) | (mapped.get(position + 2) & 0xFF);
+			sector = ((mapped.get(position + 3) & 0xFF) << 16) | ((mapped.get(position + 4) & 0xFF) << 8) | (mapped.get(position + 5) & 0xFF);
+		}
+		else
+		{
+			synchronized (this)
+			{
+				idx.seek(id * INDEX_ENTRY_LEN);
+				int i = idx.read(buffer);
+				if (i != INDEX_ENTRY_LEN)
+				{
+					logger.debug("short read for id {} on index {}: {}", id, indexFileId, i);
+					return null;
+				}
+
+				length = ((buffer[0] & 0xFF) << 16) | ((buffer[1] & 0xFF) << 8) | (buffer[2] & 0xFF);
+				sector = ((buffer[3] & 0xFF) << 16) | ((buffer[4] & 0xFF) << 8) | (buffer[5] & 0xFF);
+			}
 		}
-
-		int length = ((buffer[0] & 0xFF) << 16) | ((buffer[1] & 0xFF) << 8) | (buffer[2] & 0xFF);
-		int sector = ((buffer[3] & 0xFF) << 16) | ((buffer[4] & 0xFF) << 8) | (buffer[5] & 0xFF);
 
 		if (length <= 0 || sector <= 0)
 		{
@@ -131,8 +192,16 @@ public class IndexFile implements Closeable
 		return new IndexEntry(this, id, sector, length);
 	}
 
-	public synchronized int getIndexCount() throws IOException
+	public int getIndexCount() throws IOException
 	{
-		return (int) (idx.length() / INDEX_ENTRY_LEN);
+		if (mapped != null)
+		{
+			return mapped.limit() / INDEX_ENTRY_LEN;
+		}
+
+		synchronized (this)
+		{
+			return (int) (idx.length() / INDEX_ENTRY_LEN);
+		}
 	}
 }
@@ -24,10 +24,22 @@
  */
 package net.runelite.cache.region;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Iterators;
 import java.io.IOException;
+import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.LocationsDefinition;
 import net.runelite.cache.definitions.MapDefinition;
@@ -55,16 +67,84 @@ public class RegionLoader
 	private Region lowestX = null, lowestY = null;
 	private Region highestX = null, highestY = null;
 
+	// lazy mode
+	private final LoadingCache<Integer, Optional<Region>> regionCache;
+	private Set<Integer> regionIds;
+	private Executor prefetchExecutor;
+
 	public RegionLoader(Store store)
+	{
+		this(store, null);
+	}
+
+	/**
+	 * Create a region loader which loads regions on demand instead of all
+	 * at once, keeping at most {@code cacheSize} of the most recently used
+	 * regions loaded.
+	 *
+	 * @param store store
+	 * @param cacheSize maximum number of regions to keep loaded
+	 */
+	public RegionLoader(Store store, int cacheSize)
+	{
+		this(store, regionCacheBuilder(cacheSize));
+	}
+
+	private RegionLoader(Store store, CacheBuilder<Object, Object> regionCacheBuilder)
 	{
 		this.store = store;
 		index = store.getIndex(IndexType.MAPS);
 		keyManager = new XteaKeyManager();
 		keyManager.loadKeys();
+
+		if (regionCacheBuilder == null)
+		{
+			regionCache = null;
+			return;
+		}
+
+		regionCache = regionCacheBuilder.build(new CacheLoader<Integer, Optional<Region>>()
+		{
+			@Override
+			public Optional<Region> load(Integer regionId) throws IOException
+			{
+				return Optional.ofNullable(loadRegionFromArchive(regionId));
+			}
+		});
+	}
+
+	private static CacheBuilder<Object, Object> regionCacheBuilder(int cacheSize)
+	{
+		Preconditions.checkArgument(cacheSize > 0, "cache size must be positive");
+		return CacheBuilder.newBuilder()
+			.maximumSize(cacheSize);
+	}
+
+	public boolean isLazy()
+	{
+		return regionCache != null;
+	}
+
+	/**
+	 * Set the executor used to load the neighbors of regions in the
+	 * background as they are looked up. Only used by lazy region loaders.
+	 *
+	 * @param prefetchExecutor executor, or null to disable prefetching
+	 */
+	public void setPrefetchExecutor(Executor prefetchExecutor)
+	{
+		this.prefetchExecutor = prefetchExecutor;
 	}
 
 	public void loadRegions() throws IOException
 	{
+		if (regionCache != null)
+		{
+			// regions are loaded on demand, just find which exist
+			getRegionIds();
+			return;
+		}
+
 		for (int i = 0; i < MAX_REGION; ++i)
 		{
 			Region region = this.loadRegionFromArchive(i);
@@ -75,6 +155,90 @@ public class RegionLoader
 		}
 	}
 
+	private synchronized Set<Integer> getRegionIds()
+	{
+		if (regionIds == null)
+		{
+			Set<Integer> ids = new LinkedHashSet<>();
+			for (int i = 0; i < MAX_REGION; ++i)
+			{
+				int x = i >> 8;
+				int y = i & 0xFF;
+
+				if (index.findArchiveByName("m" + x + "_" + y) != null
+					&& index.findArchiveByName("l" + x + "_" + y) != null)
+				{
+					ids.add(i);
+				}
+			}
+			regionIds = ids;
+		}
+		return regionIds;
+	}
+
+	private Region getRegion(int regionId)
+	{
+		if (regionCache == null)
+		{
+			return regions.get(regionId);
+		}
+
+		if (!getRegionIds().contains(regionId))
+		{
+			return null;
+		}
+
+		return regionCache.getUnchecked(regionId).orElse(null);
+	}
+
+	private void prefetchNeighbors(int regionId)
+	{
+		Executor executor = prefetchExecutor;
+		if (executor == null)
+		{
+			return;
+		}
+
+		int x = regionId >> 8;
+		int y = regionId & 0xFF;
+
+		for (int dx = -1; dx <= 1; ++dx)
+		{
+			for (int dy = -1; dy <= 1; ++dy)
+			{
+				int neighborId = ((x + dx) << 8) | (y + dy);
+				if ((dx == 0 && dy == 0) || x + dx < 0 || y + dy < 0 || y + dy > 0xFF
+					|| !getRegionIds().contains(neighborId)
+					|| regionCache.getIfPresent(neighborId) != null)
+				{
+					continue;
+				}
+
+				executor.execute(() ->
+				{
+					try
+					{
+						regionCache.getUnchecked(neighborId);
+					}
+					catch (RuntimeException ex)
+					{
+						logger.debug("Unable to prefetch region {}", neighborId, ex);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Get the number of regions currently loaded by a lazy region loader
+	 */
+	@VisibleForTesting
+	long getLoadedRegionCount()
+	{
+		regionCache.cleanUp();
+		return regionCache.size();
+	}
+
 	public Region loadRegionFromArchive(int i) throws IOException
 	{
 		int x = i >> 8;
@@ -118,6 +282,12 @@ public class RegionLoader
 
 	public void calculateBounds()
 	{
+		if (regionCache != null)
+		{
+			calculateLazyBounds();
+			return;
+		}
+
 		for (Region region : regions.values())
 		{
 			if (lowestX == null || region.getBaseX() < lowestX.getBaseX())
@@ -142,16 +312,84 @@ public class RegionLoader
 		}
 	}
 
+	private void calculateLazyBounds()
+	{
+		int lowX = -1, lowY = -1, highX = -1, highY = -1;
+		for (int regionId : getRegionIds())
+		{
+			int x = regionId >> 8;
+			int y = regionId & 0xFF;
+
+			if (lowX == -1 || x < (lowX >> 8))
+			{
+				lowX = regionId;
+			}
+
+			if (highX == -1 || x > (highX >> 8))
+			{
+				highX = regionId;
+			}
+
+			if (lowY == -1 || y < (lowY & 0xFF))
+			{
+				lowY = regionId;
+			}
+
+			if (highY == -1 || y > (highY & 0xFF))
+			{
+				highY = regionId;
+			}
+		}
+
+		if (lowX != -1)
+		{
+			lowestX = getRegion(lowX);
+			highestX = getRegion(highX);
+			lowestY = getRegion(lowY);
+			highestY = getRegion(highY);
+		}
+	}
+
+	/**
+	 * Get all regions. For lazy region loaders the returned collection
+	 * loads regions as it is iterated.
+	 */
 	public Collection<Region> getRegions()
 	{
-		return regions.values();
+		if (regionCache == null)
+		{
+			return regions.values();
+		}
+
+		Set<Integer> ids = getRegionIds();
+		return new AbstractCollection<Region>()
+		{
+			@Override
+			public Iterator<Region> iterator()
+			{
+				return Iterators.transform(ids.iterator(), RegionLoader.this::getRegion);
+			}
+
+			@Override
+			public int size()
+			{
+				return ids.size();
+			}
+		};
 	}
 
 	public Region findRegionForWorldCoordinates(int x, int y)
 	{
 		x >>>= 6;
 		y >>>= 6;
-		return regions.get((x << 8) | y);
+
+		int regionId = (x << 8) | y;
+		Region region = getRegion(regionId);
+		if (region != null && regionCache != null)
+		{
+			prefetchNeighbors(regionId);
+		}
+		return region;
 	}
 
 	public Region getLowestX()
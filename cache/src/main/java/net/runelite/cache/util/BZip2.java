@@ -24,11 +24,13 @@
  */
 package net.runelite.cache.util;
 
+import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -47,6 +49,16 @@ public class BZip2
 		'1'       // block size
 	};
 
+	private static final byte[] BLOCK_MAGIC = new byte[]
+	{
+		0x31, 0x41, 0x59, 0x26, 0x53, 0x59 // pi
+	};
+
+	private static final byte[] EOS_MAGIC = new byte[]
+	{
+		0x17, 0x72, 0x45, 0x38, 0x50, (byte) 0x90 // sqrt(pi), for empty data
+	};
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -66,21 +78,67 @@ public class BZip2
 		return Arrays.copyOfRange(out, BZIP_HEADER.length, out.length); // remove header..
 	}
 
-	public static byte[] decompress(byte[] bytes, int len) throws IOException
+	/**
+	 * Decompress headerless bzip2 data into a buffer of its known
+	 * decompressed size
+	 *
+	 * @param bytes compressed data, without the bzip2 header
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @param out buffer to decompress into, sized to the decompressed length
+	 * @throws IOException if the data is not bzip2 data or does not
+	 * decompress to exactly out.length bytes
+	 */
+	public static void decompress(byte[] bytes, int off, int len, byte[] out) throws IOException
 	{
-		byte[] data = new byte[len + BZIP_HEADER.length];
+		checkMagic(bytes, off, len);
+
+		InputStream in = new SequenceInputStream(new ByteArrayInputStream(BZIP_HEADER),
+			new ByteArrayInputStream(bytes, off, len));
 
-		// add header
-		System.arraycopy(BZIP_HEADER, 0, data, 0, BZIP_HEADER.length);
-		System.arraycopy(bytes, 0, data, BZIP_HEADER.length, len);
+		try (InputStream is = new BZip2CompressorInputStream(in))
+		{
+			ByteStreams.readFully(is, out);
 
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
+			if (is.read() != -1)
+			{
+				throw new IOException("decompressed data is longer than expected " + out.length);
+			}
+		}
+	}
 
-		try (InputStream is = new BZip2CompressorInputStream(new ByteArrayInputStream(data)))
+	/**
+	 * Check that headerless bzip2 data starts with the magic of a block,
+	 * so that garbage, such as data decrypted with the wrong keys, can be
+	 * rejected before anything is allocated for it
+	 *
+	 * @param bytes compressed data, without the bzip2 header
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @throws IOException if the data does not start with a block magic
+	 */
+	public static void checkMagic(byte[] bytes, int off, int len) throws IOException
+	{
+		if (!startsWith(bytes, off, len, BLOCK_MAGIC) && !startsWith(bytes, off, len, EOS_MAGIC))
 		{
-			IOUtils.copy(is, os);
+			throw new IOException("invalid bzip2 block magic");
 		}
+	}
 
-		return os.toByteArray();
+	private static boolean startsWith(byte[] bytes, int off, int len, byte[] magic)
+	{
+		if (len < magic.length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < magic.length; ++i)
+		{
+			if (bytes[off + i] != magic[i])
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 }
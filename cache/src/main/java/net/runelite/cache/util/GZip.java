@@ -25,6 +25,7 @@
 
 package net.runelite.cache.util;
 
+import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -40,6 +41,9 @@ public class GZip
 {
 	private static final Logger logger = LoggerFactory.getLogger(GZip.class);
 
+	// the only compression method gzip defines
+	private static final byte DEFLATED = 8;
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -53,15 +57,46 @@ public class GZip
 		return bout.toByteArray();
 	}
 
-	public static byte[] decompress(byte[] bytes, int len) throws IOException
+	/**
+	 * Decompress gzip data into a buffer of its known decompressed size
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @param out buffer to decompress into, sized to the decompressed length
+	 * @throws IOException if the data is not gzip data or does not
+	 * decompress to exactly out.length bytes
+	 */
+	public static void decompress(byte[] bytes, int off, int len, byte[] out) throws IOException
 	{
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		
-		try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(bytes, 0, len)))
+		checkMagic(bytes, off, len);
+
+		try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(bytes, off, len)))
 		{
-			IOUtils.copy(is, os);
+			ByteStreams.readFully(is, out);
+
+			if (is.read() != -1)
+			{
+				throw new IOException("decompressed data is longer than expected " + out.length);
+			}
 		}
+	}
 
-		return os.toByteArray();
+	/**
+	 * Check that gzip data starts with the gzip magic and the deflate
+	 * compression method, so that garbage, such as data decrypted with the
+	 * wrong keys, can be rejected before anything is allocated for it
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @throws IOException if the data does not start with a gzip header
+	 */
+	public static void checkMagic(byte[] bytes, int off, int len) throws IOException
+	{
+		if (len < 3 || bytes[off] != (byte) 0x1f || bytes[off + 1] != (byte) 0x8b || bytes[off + 2] != DEFLATED)
+		{
+			throw new IOException("invalid gzip magic");
+		}
 	}
 }
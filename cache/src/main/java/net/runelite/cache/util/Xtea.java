@@ -65,8 +65,24 @@ public class Xtea
 
 	public byte[] decrypt(byte[] data, int len)
 	{
-		ByteBuf buf = Unpooled.wrappedBuffer(data, 0, len);
-		ByteBuf out = Unpooled.buffer(len);
+		byte[] out = new byte[len];
+		decrypt(data, 0, len, out);
+		return out;
+	}
+
+	/**
+	 * Decrypt data into a caller supplied buffer
+	 *
+	 * @param data encrypted data
+	 * @param off offset of the encrypted data
+	 * @param len length of the encrypted data
+	 * @param out buffer to decrypt into, at least len bytes long
+	 */
+	public void decrypt(byte[] data, int off, int len, byte[] out)
+	{
+		ByteBuf buf = Unpooled.wrappedBuffer(data, off, len);
+		ByteBuf outBuf = Unpooled.wrappedBuffer(out);
+		outBuf.writerIndex(0);
 		int numBlocks = len / 8;
 		for (int block = 0; block < numBlocks; ++block)
 		{
@@ -79,10 +95,9 @@ public class Xtea
 				sum -= GOLDEN_RATIO;
 				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
 			}
-			out.writeInt(v0);
-			out.writeInt(v1);
+			outBuf.writeInt(v0);
+			outBuf.writeInt(v1);
 		}
-		out.writeBytes(buf);
-		return out.array();
+		outBuf.writeBytes(buf);
 	}
 }
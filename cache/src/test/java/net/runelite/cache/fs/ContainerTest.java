@@ -25,9 +25,14 @@
 package net.runelite.cache.fs;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
+import static net.runelite.cache.fs.jagex.CompressionType.BZ2;
 import static net.runelite.cache.fs.jagex.CompressionType.GZ;
+import static net.runelite.cache.fs.jagex.CompressionType.NONE;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class ContainerTest
@@ -52,4 +57,64 @@ public class ContainerTest
 		assertArrayEquals(data, container.data);
 	}
 
+	@Test
+	public void testDecompress() throws IOException
+	{
+		Random random = new Random(42L);
+		byte[] data = new byte[4096];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{NONE, BZ2, GZ})
+		{
+			Container container = new Container(compression, 7);
+			container.compress(data, null);
+			byte[] compressedData = container.data;
+			byte[] copy = compressedData.clone();
+
+			container = Container.decompress(compressedData, null);
+			assertArrayEquals(data, container.data);
+			assertEquals(7, container.revision);
+			assertEquals(compression, container.compression);
+			// decompressing must not modify the input
+			assertArrayEquals(copy, compressedData);
+
+			container = new Container(compression, -1);
+			container.compress(new byte[0], null);
+			container = Container.decompress(container.data, null);
+			assertEquals(0, container.data.length);
+			assertEquals(-1, container.revision);
+		}
+	}
+
+	@Test
+	public void testDecompressWrongKeys() throws IOException
+	{
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{BZ2, GZ})
+		{
+			Container container = new Container(compression, -1);
+			container.compress(data, new int[]{4, 8, 15, 16});
+
+			for (int i = 0; i < 10000; ++i)
+			{
+				int[] keys = new int[]
+				{
+					random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt()
+				};
+
+				try
+				{
+					Container.decompress(container.data, keys);
+					fail("decompressed with wrong keys " + Arrays.toString(keys));
+				}
+				catch (IOException ex)
+				{
+					// expected
+				}
+			}
+		}
+	}
 }
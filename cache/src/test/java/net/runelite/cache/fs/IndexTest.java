@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import net.runelite.cache.util.Djb2;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class IndexTest
+{
+	@Test
+	public void testFindArchive()
+	{
+		Index index = new Index(5);
+		Archive archive1 = index.addArchive(1);
+		archive1.setNameHash(Djb2.hash("m50_50"));
+		Archive archive2 = index.addArchive(2);
+		archive2.setNameHash(Djb2.hash("l50_50"));
+
+		assertSame(archive1, index.getArchive(1));
+		assertSame(archive2, index.getArchive(2));
+		assertNull(index.getArchive(3));
+
+		assertSame(archive1, index.findArchiveByName("m50_50"));
+		assertSame(archive2, index.findArchiveByName("l50_50"));
+		assertNull(index.findArchiveByName("m50_51"));
+
+		// name hashes may change after lookup
+		archive2.setNameHash(Djb2.hash("m50_51"));
+		assertSame(archive2, index.findArchiveByName("m50_51"));
+		assertNull(index.findArchiveByName("l50_50"));
+
+		Archive archive3 = index.addArchive(3);
+		archive3.setNameHash(Djb2.hash("l50_50"));
+		assertSame(archive3, index.getArchive(3));
+		assertSame(archive3, index.findArchiveByName("l50_50"));
+	}
+}
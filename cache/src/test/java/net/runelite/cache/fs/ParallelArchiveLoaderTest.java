@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelArchiveLoaderTest
+{
+	private static final int NUM_ARCHIVES = 64;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testGetFiles() throws IOException
+	{
+		File file = folder.newFolder();
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+
+		try (Store store = new Store(file))
+		{
+			for (int i = 0; i < 2; ++i)
+			{
+				Index index = store.addIndex(i);
+
+				for (int j = 0; j < NUM_ARCHIVES; ++j)
+				{
+					Archive archive = index.addArchive(j);
+					archive.setCompression(j % 2 == 0 ? CompressionType.BZ2 : CompressionType.GZ);
+
+					FileData[] fileData = new FileData[2];
+					for (int k = 0; k < fileData.length; ++k)
+					{
+						fileData[k] = new FileData();
+						fileData[k].setId(k);
+					}
+					archive.setFileData(fileData);
+
+					ArchiveFiles files = new ArchiveFiles();
+					for (int k = 0; k < fileData.length; ++k)
+					{
+						FSFile f = new FSFile(k);
+						f.setContents(("test " + i + " " + j + " " + k).getBytes());
+						files.addFile(f);
+					}
+
+					Container container = new Container(archive.getCompression(), -1);
+					container.compress(files.saveContents(), i == 1 ? keys : null);
+					store.getStorage().saveArchive(archive, container.data);
+				}
+			}
+
+			store.save();
+		}
+
+		try (Store store = new Store(new DiskStorage(file, true));
+			ParallelArchiveLoader loader = new ParallelArchiveLoader(store, 4))
+		{
+			loader.load();
+			assertEquals(2, store.getIndexes().size());
+
+			for (Index index : store.getIndexes())
+			{
+				Map<Integer, ArchiveFiles> archives = loader.getFiles(index, a -> index.getId() == 1 ? keys : null);
+				assertEquals(NUM_ARCHIVES, archives.size());
+
+				int j = 0;
+				for (Map.Entry<Integer, ArchiveFiles> entry : archives.entrySet())
+				{
+					assertEquals(j, (int) entry.getKey());
+
+					ArchiveFiles files = entry.getValue();
+					assertEquals(2, files.getFiles().size());
+					for (FSFile f : files.getFiles())
+					{
+						assertArrayEquals(("test " + index.getId() + " " + j + " " + f.getFileId()).getBytes(), f.getContents());
+					}
+					++j;
+				}
+			}
+		}
+	}
+}
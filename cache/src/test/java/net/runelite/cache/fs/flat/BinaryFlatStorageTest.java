@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryFlatStorageTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSaveLoad() throws Exception
+	{
+		File diskFolder = folder.newFolder();
+		File binaryFolder = folder.newFolder();
+		File flatFolder = folder.newFolder();
+		File binaryFolder2 = folder.newFolder();
+
+		try (Store store = new Store(new DiskStorage(diskFolder)))
+		{
+			for (int i = 0; i < 2; ++i)
+			{
+				Index index = store.addIndex(i);
+				index.setRevision(10 + i);
+
+				for (int j = 0; j < 3; ++j)
+				{
+					Archive archive = index.addArchive(j);
+					archive.setNameHash(j * 31);
+					archive.setRevision(j);
+					archive.setCompression(CompressionType.GZ);
+
+					FileData[] fileData = new FileData[j + 1];
+					for (int k = 0; k < fileData.length; ++k)
+					{
+						fileData[k] = new FileData();
+						fileData[k].setId(k);
+						fileData[k].setNameHash(k * 7);
+					}
+					archive.setFileData(fileData);
+
+					Container container = new Container(archive.getCompression(), j);
+					container.compress(("test " + i + " " + j).getBytes(), null);
+					store.getStorage().saveArchive(archive, container.data);
+				}
+			}
+
+			store.save();
+
+			new BinaryFlatStorage(binaryFolder).save(store);
+		}
+
+		BinaryFlatStorage.exportFlatStorage(binaryFolder, flatFolder);
+		BinaryFlatStorage.importFlatStorage(flatFolder, binaryFolder2);
+
+		try (Store store = new Store(new DiskStorage(diskFolder));
+			Store binaryStore = new Store(new BinaryFlatStorage(binaryFolder2)))
+		{
+			store.load();
+			binaryStore.load();
+
+			assertEquals(store, binaryStore);
+
+			for (Index index : store.getIndexes())
+			{
+				Index binaryIndex = binaryStore.findIndex(index.getId());
+				assertEquals(index.getCrc(), binaryIndex.getCrc());
+
+				for (Archive archive : index.getArchives())
+				{
+					Archive binaryArchive = binaryIndex.getArchive(archive.getArchiveId());
+					assertEquals(archive.getCrc(), binaryArchive.getCrc());
+					assertEquals(archive.getFileData().length, binaryArchive.getFileData().length);
+
+					byte[] data = binaryArchive.decompress(binaryStore.getStorage().loadArchive(binaryArchive));
+					assertArrayEquals(("test " + index.getId() + " " + archive.getArchiveId()).getBytes(), data);
+				}
+			}
+		}
+	}
+}
@@ -99,4 +99,47 @@ public class DiskStorageTest
 		}
 	}
 
+	@Test
+	public void testReadOnly() throws Exception
+	{
+		File file = folder.newFolder();
+		byte[] data = new byte[2048];
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = (byte) i;
+		}
+
+		DiskStorage storage = new DiskStorage(file);
+		try (Store store = new Store(storage))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 3; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				FileData[] fileData = new FileData[1];
+				fileData[0] = new FileData();
+				archive.setFileData(fileData);
+
+				Container container = new Container(archive.getCompression(), -1);
+				container.compress(data, null);
+				storage.saveArchive(archive, container.data);
+			}
+
+			store.save();
+		}
+
+		storage = new DiskStorage(file, true);
+		try (Store store = new Store(storage))
+		{
+			store.load();
+			Index index = store.findIndex(0);
+			assertEquals(3, index.getArchives().size());
+
+			for (Archive archive : index.getArchives())
+			{
+				byte[] compressedData = storage.loadArchive(archive);
+				assertArrayEquals(data, archive.decompress(compressedData));
+			}
+		}
+	}
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.region;
+
+import java.io.File;
+import java.io.IOException;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.util.Djb2;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RegionLoaderTest
+{
+	private static final int REGIONS = 4;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testLazy() throws IOException
+	{
+		File file = folder.newFolder();
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			// the store expects the indexes before maps to exist too
+			for (int i = 0; i < IndexType.MAPS.getNumber(); ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index index = store.addIndex(IndexType.MAPS.getNumber());
+			index.setNamed(true);
+
+			// regions 0_0 to 0_3, with flat terrain and no locations
+			for (int y = 0; y < REGIONS; ++y)
+			{
+				addArchive(store, index, y * 2, "m0_" + y, new byte[Region.X * Region.Y * Region.Z]);
+				addArchive(store, index, y * 2 + 1, "l0_" + y, new byte[]{0});
+			}
+
+			store.save();
+		}
+
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			store.load();
+
+			RegionLoader regionLoader = new RegionLoader(store, 2);
+			regionLoader.loadRegions();
+			assertTrue(regionLoader.isLazy());
+			assertEquals(0, regionLoader.getLoadedRegionCount());
+
+			for (int y = 0; y < REGIONS; ++y)
+			{
+				Region region = regionLoader.findRegionForWorldCoordinates(0, y * Region.Y);
+				assertNotNull(region);
+				assertEquals(y, region.getRegionID());
+				assertTrue(regionLoader.getLoadedRegionCount() <= 2);
+			}
+
+			assertNull(regionLoader.findRegionForWorldCoordinates(Region.X, 0));
+			assertEquals(REGIONS, regionLoader.getRegions().size());
+
+			int count = 0;
+			for (Region region : regionLoader.getRegions())
+			{
+				assertNotNull(region);
+				++count;
+			}
+			assertEquals(REGIONS, count);
+			assertEquals(2, regionLoader.getLoadedRegionCount());
+		}
+	}
+
+	private static void addArchive(Store store, Index index, int id, String name, byte[] data) throws IOException
+	{
+		Archive archive = index.addArchive(id);
+		archive.setNameHash(Djb2.hash(name));
+		archive.setFileData(new FileData[]{new FileData()});
+
+		Container container = new Container(archive.getCompression(), -1);
+		container.compress(data, null);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+}
@@ -269,6 +269,8 @@ public class AccountService
 				.addParameter("uuid", session.getUuid().toString())
 				.executeUpdate();
 		}
+
+		auth.invalidate(session.getUuid());
 	}
 
 	@GetMapping("/session-check")
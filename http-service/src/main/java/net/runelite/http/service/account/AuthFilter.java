@@ -24,25 +24,47 @@
  */
 package net.runelite.http.service.account;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.IOException;
 import net.runelite.http.service.account.beans.SessionEntry;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.RuneLiteAPI;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
+@Slf4j
 public class AuthFilter
 {
 	private final Sql2o sql2o;
 
+	// recently used sessions, to avoid a query per authenticated request
+	private final Cache<UUID, SessionEntry> sessionCache = CacheBuilder.newBuilder()
+		.expireAfterWrite(30, TimeUnit.SECONDS)
+		.maximumSize(10_000L)
+		.build();
+
+	// last use of sessions, waiting to be written
+	private final Map<UUID, Instant> pendingLastUsed = new ConcurrentHashMap<>();
+
 	@Autowired
 	public AuthFilter(@Qualifier("Runelite SQL2O") Sql2o sql2o)
 	{
@@ -60,29 +82,94 @@ public class AuthFilter
 
 		UUID uuid = UUID.fromString(runeliteAuth);
 
-		try (Connection con = sql2o.open())
+		SessionEntry cached = sessionCache.getIfPresent(uuid);
+		if (cached == null)
 		{
-			SessionEntry sessionEntry = con.createQuery("select user, uuid, created from sessions where uuid = :uuid")
-				.addParameter("uuid", uuid.toString())
-				.executeAndFetchFirst(SessionEntry.class);
+			try (Connection con = sql2o.open())
+			{
+				cached = con.createQuery("select user, uuid, created from sessions where uuid = :uuid")
+					.addParameter("uuid", uuid.toString())
+					.executeAndFetchFirst(SessionEntry.class);
+			}
 
-			if (sessionEntry == null)
+			if (cached == null)
 			{
 				response.sendError(401, "Access denied");
 				return null;
 			}
 
-			Instant now = Instant.now();
+			sessionCache.put(uuid, cached);
+		}
 
-			con.createQuery("update sessions set last_used = :last_used where uuid = :uuid")
-				.addParameter("last_used", Timestamp.from(now))
-				.addParameter("uuid", uuid.toString())
-				.executeUpdate();
+		Instant now = Instant.now();
+		pendingLastUsed.put(uuid, now);
 
-			sessionEntry.setLastUsed(now);
+		// the cached entry is shared, so hand out a copy
+		SessionEntry sessionEntry = new SessionEntry();
+		sessionEntry.setUser(cached.getUser());
+		sessionEntry.setUuid(cached.getUuid());
+		sessionEntry.setCreated(cached.getCreated());
+		sessionEntry.setLastUsed(now);
+		return sessionEntry;
+	}
 
-			return sessionEntry;
-		}
+	/**
+	 * Forget a session, eg. after it is deleted on logout
+	 *
+	 * @param uuid
+	 */
+	public void invalidate(UUID uuid)
+	{
+		sessionCache.invalidate(uuid);
+		pendingLastUsed.remove(uuid);
 	}
 
+	@PreDestroy
+	public void shutdown()
+	{
+		flushLastUsed();
+	}
+
+	@Scheduled(fixedDelay = 10_000)
+	public synchronized void flushLastUsed()
+	{
+		if (pendingLastUsed.isEmpty())
+		{
+			return;
+		}
+
+		List<Map.Entry<UUID, Instant>> batch = new ArrayList<>(pendingLastUsed.size());
+		for (Map.Entry<UUID, Instant> entry : pendingLastUsed.entrySet())
+		{
+			batch.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+		}
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("update sessions set last_used = :last_used where uuid = :uuid");
+
+			for (Map.Entry<UUID, Instant> entry : batch)
+			{
+				query
+					.addParameter("last_used", Timestamp.from(entry.getValue()))
+					.addParameter("uuid", entry.getKey().toString())
+					.addToBatch();
+			}
+
+			query.executeBatch();
+			con.commit(false);
+		}
+		catch (RuntimeException ex)
+		{
+			// the entries are kept, so the next flush retries them
+			log.warn("unable to update last used time of {} sessions", batch.size(), ex);
+			return;
+		}
+
+		for (Map.Entry<UUID, Instant> entry : batch)
+		{
+			// keep the entry if the session was used again meanwhile
+			pendingLastUsed.remove(entry.getKey(), entry.getValue());
+		}
+	}
 }
@@ -24,35 +24,13 @@
  */
 package net.runelite.http.service.cache;
 
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
-import javax.imageio.ImageIO;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.cache.ConfigType;
-import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.ItemDefinition;
-import net.runelite.cache.definitions.ModelDefinition;
 import net.runelite.cache.definitions.NpcDefinition;
 import net.runelite.cache.definitions.ObjectDefinition;
-import net.runelite.cache.definitions.SpriteDefinition;
-import net.runelite.cache.definitions.TextureDefinition;
-import net.runelite.cache.definitions.loaders.ItemLoader;
-import net.runelite.cache.definitions.loaders.ModelLoader;
-import net.runelite.cache.definitions.loaders.NpcLoader;
-import net.runelite.cache.definitions.loaders.ObjectLoader;
-import net.runelite.cache.definitions.loaders.SpriteLoader;
-import net.runelite.cache.definitions.loaders.TextureLoader;
-import net.runelite.cache.definitions.providers.ItemProvider;
-import net.runelite.cache.definitions.providers.ModelProvider;
-import net.runelite.cache.definitions.providers.SpriteProvider;
-import net.runelite.cache.definitions.providers.TextureProvider;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.Container;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.item.ItemSpriteFactory;
 import net.runelite.http.api.cache.Cache;
 import net.runelite.http.api.cache.CacheArchive;
 import net.runelite.http.api.cache.CacheIndex;
@@ -61,21 +39,31 @@ import net.runelite.http.service.cache.beans.CacheEntry;
 import net.runelite.http.service.cache.beans.IndexEntry;
 import net.runelite.http.service.util.exception.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/cache")
 @Slf4j
 public class CacheController
 {
+	private static final int MAX_ITEM_IMAGES = 1024;
+
 	@Autowired
 	private CacheService cacheService;
 
+	@Autowired
+	private ItemImageService itemImageService;
+
 	@GetMapping("/")
 	public List<Cache> listCaches()
 	{
@@ -151,10 +139,11 @@ public class CacheController
 	}
 
 	@GetMapping("{cacheId}/{indexId}/{archiveId}/data")
-	public byte[] getArchiveData(
+	public ResponseEntity<byte[]> getArchiveData(
 		@PathVariable int cacheId,
 		@PathVariable int indexId,
-		@PathVariable int archiveId
+		@PathVariable int archiveId,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
 	)
 	{
 		CacheEntry cache = cacheService.findCache(cacheId);
@@ -175,50 +164,73 @@ public class CacheController
 			throw new NotFoundException();
 		}
 
-		return cacheService.getArchive(archiveEntry);
+		String etag = "\"" + archiveEntry.getCrc() + "\"";
+		if (etag.equals(ifNoneMatch))
+		{
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+
+		return ResponseEntity.ok()
+			.eTag(etag)
+			.body(cacheService.getArchive(archiveEntry));
 	}
 
-	private ArchiveEntry findConfig(ConfigType config)
+	/**
+	 * Stream the archives of an index with ids in [from, to]. See
+	 * {@link CacheService#writeArchives} for the format.
+	 */
+	@GetMapping(path = "{cacheId}/{indexId}/data", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	public ResponseEntity<StreamingResponseBody> getIndexData(
+		@PathVariable int cacheId,
+		@PathVariable int indexId,
+		@RequestParam(defaultValue = "0") int from,
+		@RequestParam(defaultValue = "2147483647") int to,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+	)
 	{
-		CacheEntry cache = cacheService.findMostRecent();
+		CacheEntry cache = cacheService.findCache(cacheId);
 		if (cache == null)
 		{
 			throw new NotFoundException();
 		}
 
-		IndexEntry indexEntry = cacheService.findIndexForCache(cache, IndexType.CONFIGS.getNumber());
+		IndexEntry indexEntry = cacheService.findIndexForCache(cache, indexId);
 		if (indexEntry == null)
 		{
 			throw new NotFoundException();
 		}
 
-		ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(indexEntry, config.getId());
-		if (archiveEntry == null)
+		// the index crc covers the crcs of all of its archives
+		String etag = "\"" + indexEntry.getCrc() + "-" + from + "-" + to + "\"";
+		if (etag.equals(ifNoneMatch))
 		{
-			throw new NotFoundException();
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
 		}
 
-		return archiveEntry;
+		return ResponseEntity.ok()
+			.eTag(etag)
+			.body(out -> cacheService.writeArchives(indexEntry, from, to, out));
 	}
 
-	@GetMapping("item/{itemId}")
-	public ItemDefinition getItem(@PathVariable int itemId) throws IOException
+	private CacheDefinitions getDefinitions() throws IOException
 	{
-		ArchiveEntry archiveEntry = findConfig(ConfigType.ITEM);
-
-		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
-		if (archiveFiles == null)
+		CacheDefinitions definitions = cacheService.getDefinitions();
+		if (definitions == null)
 		{
 			throw new NotFoundException();
 		}
+		return definitions;
+	}
 
-		FSFile file = archiveFiles.findFile(itemId);
-		if (file == null)
+	@GetMapping("item/{itemId}")
+	public ItemDefinition getItem(@PathVariable int itemId) throws IOException
+	{
+		ItemDefinition itemdef = getDefinitions().getItem(itemId);
+		if (itemdef == null)
 		{
 			throw new NotFoundException();
 		}
 
-		ItemDefinition itemdef = new ItemLoader().load(itemId, file.getContents());
 		return itemdef;
 	}
 
@@ -230,88 +242,41 @@ public class CacheController
 		@RequestParam(defaultValue = "3153952") int shadowColor
 	) throws IOException
 	{
-		final CacheEntry cache = cacheService.findMostRecent();
-		ItemProvider itemProvider = new ItemProvider()
+		byte[] image = itemImageService.getItemImage(itemId, quantity, border, shadowColor);
+		if (image == null)
 		{
-			@Override
-			public ItemDefinition provide(int itemId)
-			{
-				try
-				{
-					return getItem(itemId);
-				}
-				catch (IOException ex)
-				{
-					log.warn(null, ex);
-					return null;
-				}
-			}
-		};
-		ModelProvider modelProvider = new ModelProvider()
-		{
-			@Override
-			public ModelDefinition provide(int modelId) throws IOException
-			{
-				IndexEntry indexEntry = cacheService.findIndexForCache(cache, IndexType.MODELS.getNumber());
-				ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(indexEntry, modelId);
-				byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
-				return new ModelLoader().load(modelId, archiveData);
-			}
-		};
-		SpriteProvider spriteProvider = new SpriteProvider()
+			return ResponseEntity.notFound().build();
+		}
+
+		return ResponseEntity.ok(image);
+	}
+
+	/**
+	 * Render the images of many items into one sheet. Each item occupies a
+	 * 36x32 cell, in the order requested, filling rows of the given number
+	 * of columns.
+	 */
+	@GetMapping(path = "item/images", produces = "image/png")
+	public ResponseEntity<byte[]> getItemImages(
+		@RequestParam("id") int[] itemIds,
+		@RequestParam(defaultValue = "16") int columns,
+		@RequestParam(defaultValue = "1") int quantity,
+		@RequestParam(defaultValue = "1") int border,
+		@RequestParam(defaultValue = "3153952") int shadowColor
+	) throws IOException
+	{
+		if (itemIds.length == 0 || itemIds.length > MAX_ITEM_IMAGES || columns < 1)
 		{
-			@Override
-			public SpriteDefinition provide(int spriteId, int frameId)
-			{
-				try
-				{
-					IndexEntry indexEntry = cacheService.findIndexForCache(cache, IndexType.SPRITES.getNumber());
-					ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(indexEntry, spriteId);
-					byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
-					SpriteDefinition[] defs = new SpriteLoader().load(spriteId, archiveData);
-					return defs[frameId];
-				}
-				catch (Exception ex)
-				{
-					log.warn(null, ex);
-					return null;
-				}
-			}
-		};
-
-		TextureProvider textureProvider2 = new TextureProvider()
+			return ResponseEntity.badRequest().build();
+		}
+
+		byte[] sheet = itemImageService.getItemImageSheet(itemIds, columns, quantity, border, shadowColor);
+		if (sheet == null)
 		{
-			@Override
-			public TextureDefinition[] provide()
-			{
-				try
-				{
-					IndexEntry indexEntry = cacheService.findIndexForCache(cache, IndexType.TEXTURES.getNumber());
-					ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(indexEntry, 0);
-					ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
-					TextureLoader loader = new TextureLoader();
-					TextureDefinition[] defs = new TextureDefinition[archiveFiles.getFiles().size()];
-					int i = 0;
-					for (FSFile file : archiveFiles.getFiles())
-					{
-						TextureDefinition def = loader.load(file.getFileId(), file.getContents());
-						defs[i++] = def;
-					}
-					return defs;
-				}
-				catch (Exception ex)
-				{
-					log.warn(null, ex);
-					return null;
-				}
-			}
-		};
-
-		BufferedImage itemImage = ItemSpriteFactory.createSprite(itemProvider, modelProvider, spriteProvider, textureProvider2,
-			itemId, quantity, border, shadowColor, false);
-		ByteArrayOutputStream bao = new ByteArrayOutputStream();
-		ImageIO.write(itemImage, "png", bao);
-		return ResponseEntity.ok(bao.toByteArray());
+			return ResponseEntity.notFound().build();
+		}
+
+		return ResponseEntity.ok(sheet);
 	}
 
 	@GetMapping("object/{objectId}")
@@ -319,21 +284,12 @@ public class CacheController
 		@PathVariable int objectId
 	) throws IOException
 	{
-		ArchiveEntry archiveEntry = findConfig(ConfigType.OBJECT);
-
-		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
-		if (archiveFiles == null)
-		{
-			throw new NotFoundException();
-		}
-
-		FSFile file = archiveFiles.findFile(objectId);
-		if (file == null)
+		ObjectDefinition objectdef = getDefinitions().getObject(objectId);
+		if (objectdef == null)
 		{
 			throw new NotFoundException();
 		}
 
-		ObjectDefinition objectdef = new ObjectLoader().load(objectId, file.getContents());
 		return objectdef;
 	}
 
@@ -342,21 +298,12 @@ public class CacheController
 		@PathVariable int npcId
 	) throws IOException
 	{
-		ArchiveEntry archiveEntry = findConfig(ConfigType.NPC);
-
-		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
-		if (archiveFiles == null)
-		{
-			throw new NotFoundException();
-		}
-
-		FSFile file = archiveFiles.findFile(npcId);
-		if (file == null)
+		NpcDefinition npcdef = getDefinitions().getNpc(npcId);
+		if (npcdef == null)
 		{
 			throw new NotFoundException();
 		}
 
-		NpcDefinition npcdef = new NpcLoader().load(npcId, file.getContents());
 		return npcdef;
 	}
 }
@@ -75,6 +75,20 @@ class CacheDAO
 			.executeAndFetchLazy(ArchiveEntry.class);
 	}
 
+	public ResultSetIterable<ArchiveEntry> findArchivesForIndex(Connection con, IndexEntry indexEntry, int from, int to)
+	{
+		return con.createQuery("select archive.id, archive.archiveId, archive.nameHash,"
+			+ " archive.crc, archive.revision, archive.hash from index_archive "
+			+ "join archive on index_archive.archive = archive.id "
+			+ "where index_archive.index = :id "
+			+ "and archive.archiveId between :from and :to "
+			+ "order by archive.archiveId")
+			.addParameter("id", indexEntry.getId())
+			.addParameter("from", from)
+			.addParameter("to", to)
+			.executeAndFetchLazy(ArchiveEntry.class);
+	}
+
 	public ArchiveEntry findArchiveForIndex(Connection con, IndexEntry indexEntry, int archiveId)
 	{
 		return con.createQuery("select archive.id, archive.archiveId, archive.nameHash,"
@@ -24,6 +24,13 @@
  */
 package net.runelite.http.service.cache;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
@@ -36,18 +43,25 @@ import io.minio.errors.InvalidBucketNameException;
 import io.minio.errors.InvalidEndpointException;
 import io.minio.errors.InvalidPortException;
 import io.minio.errors.NoResponseException;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
 import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.NpcLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.FSFile;
@@ -59,6 +73,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
 import org.sql2o.ResultSetIterable;
@@ -69,6 +84,10 @@ import org.xmlpull.v1.XmlPullParserException;
 @Slf4j
 public class CacheService
 {
+	private static final long ARCHIVE_CACHE_WEIGHT = 64L * 1024 * 1024;
+	private static final long ARCHIVE_FILES_CACHE_WEIGHT = 128L * 1024 * 1024;
+	private static final int FILE_OVERHEAD = 64;
+
 	@Autowired
 	@Qualifier("Runelite Cache SQL2O")
 	private Sql2o sql2o;
@@ -78,6 +97,28 @@ public class CacheService
 
 	private final MinioClient minioClient;
 
+	/**
+	 * Archive data keyed by the hash of its contents, so it is shared
+	 * between all caches which contain the archive
+	 */
+	private final Cache<String, byte[]> archiveCache = CacheBuilder.newBuilder()
+		.maximumWeight(ARCHIVE_CACHE_WEIGHT)
+		.weigher((String hash, byte[] data) -> data.length)
+		.recordStats()
+		.build();
+
+	/**
+	 * Decompressed and split archives keyed by the archive entry id, which
+	 * identifies a specific revision of an archive in an index
+	 */
+	private final Cache<Integer, ArchiveFiles> archiveFilesCache = CacheBuilder.newBuilder()
+		.maximumWeight(ARCHIVE_FILES_CACHE_WEIGHT)
+		.weigher((Integer id, ArchiveFiles archiveFiles) -> weigh(archiveFiles))
+		.recordStats()
+		.build();
+
+	private volatile CacheDefinitions definitions;
+
 	@Autowired
 	public CacheService(
 		@Value("${minio.endpoint}") String minioEndpoint,
@@ -103,6 +144,82 @@ public class CacheService
 	public byte[] getArchive(ArchiveEntry archiveEntry)
 	{
 		String hashStr = BaseEncoding.base16().encode(archiveEntry.getHash());
+
+		try
+		{
+			return archiveCache.get(hashStr, () -> fetchArchive(hashStr));
+		}
+		catch (ExecutionException ex)
+		{
+			log.warn(null, ex.getCause());
+			return null;
+		}
+	}
+
+	/**
+	 * Write the archives of an index with ids in [from, to] to the output,
+	 * in archive id order. Archives are read from the database and object
+	 * storage as they are written, without going through the archive cache.
+	 * Each archive is written as its id, name hash, crc, revision, data
+	 * length and data, with a length of -1 if the data is unavailable. The
+	 * stream is terminated by an archive id of -1.
+	 *
+	 * @param indexEntry
+	 * @param from
+	 * @param to
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeArchives(IndexEntry indexEntry, int from, int to, OutputStream out) throws IOException
+	{
+		CacheDAO cacheDao = new CacheDAO();
+		DataOutputStream dataOut = new DataOutputStream(out);
+
+		try (Connection con = sql2o.open();
+			ResultSetIterable<ArchiveEntry> archives = cacheDao.findArchivesForIndex(con, indexEntry, from, to))
+		{
+			for (ArchiveEntry archiveEntry : archives)
+			{
+				byte[] data = null;
+				if (archiveEntry.getHash() != null)
+				{
+					String hashStr = BaseEncoding.base16().encode(archiveEntry.getHash());
+					data = archiveCache.getIfPresent(hashStr);
+					if (data == null)
+					{
+						try
+						{
+							data = fetchArchive(hashStr);
+						}
+						catch (IOException ex)
+						{
+							log.warn("unable to fetch archive {}", archiveEntry, ex);
+						}
+					}
+				}
+
+				dataOut.writeInt(archiveEntry.getArchiveId());
+				dataOut.writeInt(archiveEntry.getNameHash());
+				dataOut.writeInt(archiveEntry.getCrc());
+				dataOut.writeInt(archiveEntry.getRevision());
+				if (data == null)
+				{
+					dataOut.writeInt(-1);
+				}
+				else
+				{
+					dataOut.writeInt(data.length);
+					dataOut.write(data);
+				}
+			}
+		}
+
+		dataOut.writeInt(-1);
+		dataOut.flush();
+	}
+
+	private byte[] fetchArchive(String hashStr) throws IOException
+	{
 		String path = new StringBuilder()
 			.append(hashStr, 0, 2)
 			.append('/')
@@ -114,15 +231,40 @@ public class CacheService
 			return ByteStreams.toByteArray(in);
 		}
 		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
-			| IOException | InvalidKeyException | NoResponseException | XmlPullParserException
+			| InvalidKeyException | NoResponseException | XmlPullParserException
 			| ErrorResponseException | InternalException | InvalidArgumentException ex)
 		{
-			log.warn(null, ex);
-			return null;
+			throw new IOException(ex);
 		}
 	}
 
+	/**
+	 * retrieve the decompressed files of an archive. The returned files are
+	 * shared and must not be modified.
+	 *
+	 * @param archiveEntry
+	 * @return
+	 * @throws IOException
+	 */
 	public ArchiveFiles getArchiveFiles(ArchiveEntry archiveEntry) throws IOException
+	{
+		try
+		{
+			return archiveFilesCache.get(archiveEntry.getId(), () -> loadArchiveFiles(archiveEntry));
+		}
+		catch (CacheLoader.InvalidCacheLoadException ex)
+		{
+			// the archive could not be loaded
+			return null;
+		}
+		catch (ExecutionException ex)
+		{
+			Throwables.propagateIfPossible(ex.getCause(), IOException.class);
+			throw new IOException(ex.getCause());
+		}
+	}
+
+	private ArchiveFiles loadArchiveFiles(ArchiveEntry archiveEntry) throws IOException
 	{
 		CacheDAO cacheDao = new CacheDAO();
 
@@ -156,6 +298,38 @@ public class CacheService
 		}
 	}
 
+	private static int weigh(ArchiveFiles archiveFiles)
+	{
+		int weight = 0;
+		for (FSFile file : archiveFiles.getFiles())
+		{
+			weight += FILE_OVERHEAD;
+			if (file.getContents() != null)
+			{
+				weight += file.getContents().length;
+			}
+		}
+		return weight;
+	}
+
+	public CacheStats getArchiveCacheStats()
+	{
+		return archiveCache.stats();
+	}
+
+	public CacheStats getArchiveFilesCacheStats()
+	{
+		return archiveFilesCache.stats();
+	}
+
+	@Scheduled(fixedDelay = 10 * 60 * 1000)
+	public void logCacheStats()
+	{
+		log.debug("Archive cache: {} entries, {}; archive files cache: {} entries, {}",
+			archiveCache.size(), archiveCache.stats(),
+			archiveFilesCache.size(), archiveFilesCache.stats());
+	}
+
 	public List<CacheEntry> listCaches()
 	{
 		try (Connection con = sql2o.open())
@@ -232,23 +406,98 @@ public class CacheService
 	}
 
 	public List<ItemDefinition> getItems() throws IOException
+	{
+		CacheDefinitions definitions = getDefinitions();
+		if (definitions == null)
+		{
+			return Collections.emptyList();
+		}
+
+		return ImmutableList.copyOf(definitions.getItems().values());
+	}
+
+	/**
+	 * Get the definitions of the most recent cache
+	 *
+	 * @return the definitions, or null if there is no cache
+	 * @throws IOException
+	 */
+	public CacheDefinitions getDefinitions() throws IOException
+	{
+		CacheDefinitions definitions = this.definitions;
+		if (definitions == null)
+		{
+			refreshDefinitions();
+			definitions = this.definitions;
+		}
+		return definitions;
+	}
+
+	@Scheduled(fixedDelay = 60_000)
+	public synchronized void refreshDefinitions() throws IOException
 	{
 		CacheEntry cache = findMostRecent();
 		if (cache == null)
 		{
-			return Collections.emptyList();
+			return;
+		}
+
+		CacheDefinitions current = definitions;
+		if (current != null && current.getCache().getId() == cache.getId())
+		{
+			return;
 		}
 
 		IndexEntry indexEntry = findIndexForCache(cache, IndexType.CONFIGS.getNumber());
-		ArchiveEntry archiveEntry = findArchiveForIndex(indexEntry, ConfigType.ITEM.getId());
-		ArchiveFiles archiveFiles = getArchiveFiles(archiveEntry);
+		if (indexEntry == null)
+		{
+			return;
+		}
+
+		ArchiveFiles items = getConfigFiles(indexEntry, ConfigType.ITEM);
+		ArchiveFiles objects = getConfigFiles(indexEntry, ConfigType.OBJECT);
+		ArchiveFiles npcs = getConfigFiles(indexEntry, ConfigType.NPC);
+		if (items == null || objects == null || npcs == null)
+		{
+			log.warn("Unable to load definitions for cache {}", cache);
+			return;
+		}
+
 		final ItemLoader itemLoader = new ItemLoader();
-		final List<ItemDefinition> result = new ArrayList<>(archiveFiles.getFiles().size());
-		for (FSFile file : archiveFiles.getFiles())
+		final ImmutableMap.Builder<Integer, ItemDefinition> itemBuilder = ImmutableMap.builder();
+		for (FSFile file : items.getFiles())
+		{
+			itemBuilder.put(file.getFileId(), itemLoader.load(file.getFileId(), file.getContents()));
+		}
+
+		final ObjectLoader objectLoader = new ObjectLoader();
+		final ImmutableMap.Builder<Integer, ObjectDefinition> objectBuilder = ImmutableMap.builder();
+		for (FSFile file : objects.getFiles())
+		{
+			objectBuilder.put(file.getFileId(), objectLoader.load(file.getFileId(), file.getContents()));
+		}
+
+		final NpcLoader npcLoader = new NpcLoader();
+		final ImmutableMap.Builder<Integer, NpcDefinition> npcBuilder = ImmutableMap.builder();
+		for (FSFile file : npcs.getFiles())
 		{
-			ItemDefinition itemDef = itemLoader.load(file.getFileId(), file.getContents());
-			result.add(itemDef);
+			npcBuilder.put(file.getFileId(), npcLoader.load(file.getFileId(), file.getContents()));
 		}
-		return result;
+
+		definitions = new CacheDefinitions(cache, itemBuilder.build(), objectBuilder.build(), npcBuilder.build());
+
+		log.info("Loaded definitions for cache {}: {} items, {} objects, {} npcs", cache.getId(),
+			definitions.getItems().size(), definitions.getObjects().size(), definitions.getNpcs().size());
+	}
+
+	private ArchiveFiles getConfigFiles(IndexEntry indexEntry, ConfigType configType) throws IOException
+	{
+		ArchiveEntry archiveEntry = findArchiveForIndex(indexEntry, configType.getId());
+		if (archiveEntry == null)
+		{
+			return null;
+		}
+
+		return getArchiveFiles(archiveEntry);
 	}
 }
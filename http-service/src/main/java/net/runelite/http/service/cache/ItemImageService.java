@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.SpriteDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.ModelLoader;
+import net.runelite.cache.definitions.loaders.SpriteLoader;
+import net.runelite.cache.definitions.loaders.TextureLoader;
+import net.runelite.cache.definitions.providers.ItemProvider;
+import net.runelite.cache.definitions.providers.ModelProvider;
+import net.runelite.cache.definitions.providers.SpriteProvider;
+import net.runelite.cache.definitions.providers.TextureProvider;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.item.ItemSpriteFactory;
+import net.runelite.http.service.cache.beans.ArchiveEntry;
+import net.runelite.http.service.cache.beans.CacheEntry;
+import net.runelite.http.service.cache.beans.IndexEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Renders item images, caching the encoded PNGs by cache and render
+ * parameters
+ */
+@Service
+@Slf4j
+public class ItemImageService
+{
+	public static final int ITEM_WIDTH = 36;
+	public static final int ITEM_HEIGHT = 32;
+
+	private static final long IMAGE_CACHE_WEIGHT = 32L * 1024 * 1024;
+	private static final byte[] EMPTY = new byte[0];
+
+	private final CacheService cacheService;
+	private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+	private final Cache<ItemImageKey, byte[]> imageCache = CacheBuilder.newBuilder()
+		.maximumWeight(IMAGE_CACHE_WEIGHT)
+		.weigher((ItemImageKey key, byte[] png) -> Math.max(png.length, 1))
+		.recordStats()
+		.build();
+
+	@Autowired
+	public ItemImageService(CacheService cacheService)
+	{
+		this.cacheService = cacheService;
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Get the image of an item from the most recent cache
+	 *
+	 * @param itemId
+	 * @param quantity
+	 * @param border
+	 * @param shadowColor
+	 * @return the png encoded image, or null if the item has no image
+	 * @throws IOException
+	 */
+	public byte[] getItemImage(int itemId, int quantity, int border, int shadowColor) throws IOException
+	{
+		CacheDefinitions definitions = cacheService.getDefinitions();
+		if (definitions == null)
+		{
+			return null;
+		}
+
+		return getItemImage(definitions, itemId, quantity, border, shadowColor);
+	}
+
+	private byte[] getItemImage(CacheDefinitions definitions, int itemId, int quantity, int border, int shadowColor) throws IOException
+	{
+		ItemImageKey key = new ItemImageKey(definitions.getCache().getId(), itemId, quantity, border, shadowColor);
+
+		byte[] png;
+		try
+		{
+			png = imageCache.get(key, () -> render(definitions, itemId, quantity, border, shadowColor));
+		}
+		catch (ExecutionException ex)
+		{
+			Throwables.propagateIfPossible(ex.getCause(), IOException.class);
+			throw new IOException(ex.getCause());
+		}
+
+		return png.length > 0 ? png : null;
+	}
+
+	/**
+	 * Render the images of many items on a worker pool and lay them out in
+	 * a sheet, left to right and top to bottom in the order requested.
+	 * Items without an image are left blank.
+	 *
+	 * @param itemIds
+	 * @param columns
+	 * @param quantity
+	 * @param border
+	 * @param shadowColor
+	 * @return the png encoded sheet, or null if there is no cache
+	 * @throws IOException
+	 */
+	public byte[] getItemImageSheet(int[] itemIds, int columns, int quantity, int border, int shadowColor) throws IOException
+	{
+		CacheDefinitions definitions = cacheService.getDefinitions();
+		if (definitions == null)
+		{
+			return null;
+		}
+
+		List<Future<byte[]>> futures = new ArrayList<>(itemIds.length);
+		for (int itemId : itemIds)
+		{
+			futures.add(executor.submit(() -> getItemImage(definitions, itemId, quantity, border, shadowColor)));
+		}
+
+		int rows = (itemIds.length + columns - 1) / columns;
+		BufferedImage sheet = new BufferedImage(Math.min(itemIds.length, columns) * ITEM_WIDTH, rows * ITEM_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = sheet.createGraphics();
+
+		for (int i = 0; i < futures.size(); ++i)
+		{
+			byte[] png;
+			try
+			{
+				png = futures.get(i).get();
+			}
+			catch (InterruptedException ex)
+			{
+				graphics.dispose();
+				futures.forEach(f -> f.cancel(true));
+				Thread.currentThread().interrupt();
+				throw new IOException(ex);
+			}
+			catch (ExecutionException ex)
+			{
+				log.warn("unable to render item {}", itemIds[i], ex.getCause());
+				continue;
+			}
+
+			if (png == null)
+			{
+				continue;
+			}
+
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+			graphics.drawImage(image, (i % columns) * ITEM_WIDTH, (i / columns) * ITEM_HEIGHT, null);
+		}
+
+		graphics.dispose();
+
+		ByteArrayOutputStream bao = new ByteArrayOutputStream();
+		ImageIO.write(sheet, "png", bao);
+		return bao.toByteArray();
+	}
+
+	public CacheStats getImageCacheStats()
+	{
+		return imageCache.stats();
+	}
+
+	private byte[] render(CacheDefinitions definitions, int itemId, int quantity, int border, int shadowColor) throws IOException
+	{
+		if (definitions.getItem(itemId) == null)
+		{
+			return EMPTY;
+		}
+
+		final CacheEntry cache = definitions.getCache();
+		final IndexEntry configIndex = cacheService.findIndexForCache(cache, IndexType.CONFIGS.getNumber());
+		final IndexEntry modelIndex = cacheService.findIndexForCache(cache, IndexType.MODELS.getNumber());
+		final IndexEntry spriteIndex = cacheService.findIndexForCache(cache, IndexType.SPRITES.getNumber());
+		final IndexEntry textureIndex = cacheService.findIndexForCache(cache, IndexType.TEXTURES.getNumber());
+
+		// the renderer modifies the definitions it is given, so they are
+		// decoded for each render instead of using the shared definitions
+		final ArchiveFiles itemFiles = cacheService.getArchiveFiles(cacheService.findArchiveForIndex(configIndex, ConfigType.ITEM.getId()));
+		ItemProvider itemProvider = new ItemProvider()
+		{
+			@Override
+			public ItemDefinition provide(int itemId)
+			{
+				FSFile file = itemFiles.findFile(itemId);
+				if (file == null)
+				{
+					return null;
+				}
+
+				return new ItemLoader().load(itemId, file.getContents());
+			}
+		};
+		ModelProvider modelProvider = new ModelProvider()
+		{
+			@Override
+			public ModelDefinition provide(int modelId) throws IOException
+			{
+				ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(modelIndex, modelId);
+				byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
+				return new ModelLoader().load(modelId, archiveData);
+			}
+		};
+		SpriteProvider spriteProvider = new SpriteProvider()
+		{
+			@Override
+			public SpriteDefinition provide(int spriteId, int frameId)
+			{
+				try
+				{
+					ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(spriteIndex, spriteId);
+					byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
+					SpriteDefinition[] defs = new SpriteLoader().load(spriteId, archiveData);
+					return defs[frameId];
+				}
+				catch (Exception ex)
+				{
+					log.warn(null, ex);
+					return null;
+				}
+			}
+		};
+
+		TextureProvider textureProvider2 = new TextureProvider()
+		{
+			@Override
+			public TextureDefinition[] provide()
+			{
+				try
+				{
+					ArchiveEntry archiveEntry = cacheService.findArchiveForIndex(textureIndex, 0);
+					ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
+					TextureLoader loader = new TextureLoader();
+					TextureDefinition[] defs = new TextureDefinition[archiveFiles.getFiles().size()];
+					int i = 0;
+					for (FSFile file : archiveFiles.getFiles())
+					{
+						TextureDefinition def = loader.load(file.getFileId(), file.getContents());
+						defs[i++] = def;
+					}
+					return defs;
+				}
+				catch (Exception ex)
+				{
+					log.warn(null, ex);
+					return null;
+				}
+			}
+		};
+
+		BufferedImage itemImage = ItemSpriteFactory.createSprite(itemProvider, modelProvider, spriteProvider, textureProvider2,
+			itemId, quantity, border, shadowColor, false);
+		if (itemImage == null)
+		{
+			return EMPTY;
+		}
+
+		ByteArrayOutputStream bao = new ByteArrayOutputStream();
+		ImageIO.write(itemImage, "png", bao);
+		return bao.toByteArray();
+	}
+}
@@ -24,9 +24,8 @@
  */
 package net.runelite.http.service.chat;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.runelite.http.api.chat.Duels;
@@ -45,11 +44,7 @@ public class ChatController
 {
 	private static final Pattern STRING_VALIDATION = Pattern.compile("[^a-zA-Z0-9' -]");
 	private static final int STRING_MAX_LENGTH = 50;
-
-	private final Cache<KillCountKey, Integer> killCountCache = CacheBuilder.newBuilder()
-		.expireAfterWrite(2, TimeUnit.MINUTES)
-		.maximumSize(128L)
-		.build();
+	private static final int MAX_BATCH_LOOKUP = 64;
 
 	@Autowired
 	private ChatService chatService;
@@ -63,22 +58,12 @@ public class ChatController
 		}
 
 		chatService.setKc(name, boss, kc);
-		killCountCache.put(new KillCountKey(name, boss), kc);
 	}
 
 	@GetMapping("/kc")
 	public int getKc(@RequestParam String name, @RequestParam String boss)
 	{
-		Integer kc = killCountCache.getIfPresent(new KillCountKey(name, boss));
-		if (kc == null)
-		{
-			kc = chatService.getKc(name, boss);
-			if (kc != null)
-			{
-				killCountCache.put(new KillCountKey(name, boss), kc);
-			}
-		}
-
+		Integer kc = chatService.getKc(name, boss);
 		if (kc == null)
 		{
 			throw new NotFoundException();
@@ -86,6 +71,17 @@ public class ChatController
 		return kc;
 	}
 
+	/**
+	 * Look up the kill counts of many players and bosses at once. The
+	 * result has the kill count of each name and boss pair, in order, or
+	 * null if it is unknown.
+	 */
+	@GetMapping("/kc/batch")
+	public Integer[] getKcs(@RequestParam String[] name, @RequestParam String[] boss)
+	{
+		return chatService.getKc(batchKeys(name, boss));
+	}
+
 	@PostMapping("/qp")
 	public void submitQp(@RequestParam String name, @RequestParam int qp)
 	{
@@ -179,6 +175,27 @@ public class ChatController
 		return pb;
 	}
 
+	/**
+	 * Look up the personal bests of many players and bosses at once, in
+	 * the same format as {@link #getKcs(String[], String[])}
+	 */
+	@GetMapping("/pb/batch")
+	public Integer[] getPbs(@RequestParam String[] name, @RequestParam String[] boss)
+	{
+		return chatService.getPb(batchKeys(name, boss));
+	}
+
+	private static List<KillCountKey> batchKeys(String[] names, String[] bosses)
+	{
+		int count = Math.min(Math.min(names.length, bosses.length), MAX_BATCH_LOOKUP);
+		List<KillCountKey> keys = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i)
+		{
+			keys.add(new KillCountKey(names[i], bosses[i]));
+		}
+		return keys;
+	}
+
 	@PostMapping("/duels")
 	public void submitDuels(@RequestParam String name, @RequestParam int wins,
 		@RequestParam int losses,
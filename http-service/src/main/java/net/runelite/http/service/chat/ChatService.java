@@ -24,73 +24,218 @@
  */
 package net.runelite.http.service.chat;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import net.runelite.http.api.chat.Task;
 import net.runelite.http.api.chat.Duels;
 import net.runelite.http.service.util.redis.RedisPool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
 
 @Service
 public class ChatService
 {
 	private static final Duration EXPIRE = Duration.ofMinutes(2);
+	private static final Duration NEAR_CACHE_EXPIRE = Duration.ofSeconds(10);
+	// cached in place of keys which do not exist in redis
+	private static final String MISSING = "";
 
 	private final RedisPool jedisPool;
 
+	// local copies of recently read or written keys, to save a round trip
+	// to redis for repeated lookups of the same key
+	private final Cache<String, String> nearCache = CacheBuilder.newBuilder()
+		.expireAfterWrite(NEAR_CACHE_EXPIRE.getSeconds(), TimeUnit.SECONDS)
+		.maximumSize(4096L)
+		.build();
+	private final Cache<String, Map<String, String>> nearHashCache = CacheBuilder.newBuilder()
+		.expireAfterWrite(NEAR_CACHE_EXPIRE.getSeconds(), TimeUnit.SECONDS)
+		.maximumSize(1024L)
+		.build();
+
 	@Autowired
 	public ChatService(RedisPool jedisPool)
 	{
 		this.jedisPool = jedisPool;
 	}
 
-	public Integer getKc(String name, String boss)
+	private String get(String key)
 	{
-		String value;
-		try (Jedis jedis = jedisPool.getResource())
+		String value = nearCache.getIfPresent(key);
+		if (value == null)
 		{
-			value = jedis.get("kc." + name + "." + boss);
+			try (Jedis jedis = jedisPool.getResource())
+			{
+				value = jedis.get(key);
+			}
+
+			if (value == null)
+			{
+				value = MISSING;
+			}
+			nearCache.put(key, value);
 		}
-		return value == null ? null : Integer.parseInt(value);
+		return value.isEmpty() ? null : value;
 	}
 
-	public void setKc(String name, String boss, int kc)
+	/**
+	 * Get the values of many keys, fetching the ones not in the near cache
+	 * from redis in a single round trip
+	 *
+	 * @param keys
+	 * @return values in the same order as the keys, null if not set
+	 */
+	private List<String> get(List<String> keys)
 	{
-		try (Jedis jedis = jedisPool.getResource())
+		List<String> values = new ArrayList<>(keys.size());
+		List<String> missed = new ArrayList<>();
+		for (String key : keys)
 		{
-			jedis.setex("kc." + name + "." + boss, (int) EXPIRE.getSeconds(), Integer.toString(kc));
+			String value = nearCache.getIfPresent(key);
+			values.add(value);
+			if (value == null)
+			{
+				missed.add(key);
+			}
 		}
+
+		if (!missed.isEmpty())
+		{
+			List<String> fetched;
+			try (Jedis jedis = jedisPool.getResource())
+			{
+				fetched = jedis.mget(missed.toArray(new String[0]));
+			}
+
+			for (int i = 0; i < missed.size(); ++i)
+			{
+				String value = fetched.get(i);
+				nearCache.put(missed.get(i), value == null ? MISSING : value);
+			}
+
+			for (int i = 0, j = 0; i < values.size(); ++i)
+			{
+				if (values.get(i) == null)
+				{
+					values.set(i, fetched.get(j++));
+				}
+			}
+		}
+
+		for (int i = 0; i < values.size(); ++i)
+		{
+			if (MISSING.equals(values.get(i)))
+			{
+				values.set(i, null);
+			}
+		}
+		return values;
 	}
 
-	public Integer getQp(String name)
+	private void set(String key, String value)
 	{
-		String value;
 		try (Jedis jedis = jedisPool.getResource())
 		{
-			value = jedis.get("qp." + name);
+			jedis.setex(key, (int) EXPIRE.getSeconds(), value);
 		}
-		return value == null ? null : Integer.parseInt(value);
+		nearCache.put(key, value);
 	}
 
-	public void setQp(String name, int qp)
+	private Map<String, String> getHash(String key)
+	{
+		Map<String, String> map = nearHashCache.getIfPresent(key);
+		if (map == null)
+		{
+			try (Jedis jedis = jedisPool.getResource())
+			{
+				map = jedis.hgetAll(key);
+			}
+			nearHashCache.put(key, map);
+		}
+		return map;
+	}
+
+	private void setHash(String key, Map<String, String> map)
 	{
 		try (Jedis jedis = jedisPool.getResource())
 		{
-			jedis.setex("qp." + name, (int) EXPIRE.getSeconds(), Integer.toString(qp));
+			Pipeline pipeline = jedis.pipelined();
+			pipeline.hmset(key, map);
+			pipeline.expire(key, (int) EXPIRE.getSeconds());
+			pipeline.sync();
 		}
+		nearHashCache.put(key, map);
 	}
 
-	public Task getTask(String name)
+	private static Integer parse(String value)
 	{
-		Map<String, String> map;
+		return value == null ? null : Integer.parseInt(value);
+	}
 
-		try (Jedis jedis = jedisPool.getResource())
+	private static Integer[] parse(List<String> values)
+	{
+		return values.stream()
+			.map(ChatService::parse)
+			.toArray(Integer[]::new);
+	}
+
+	private static String kcKey(String name, String boss)
+	{
+		return "kc." + name + "." + boss;
+	}
+
+	private static String pbKey(String name, String boss)
+	{
+		return "pb." + boss + "." + name;
+	}
+
+	public Integer getKc(String name, String boss)
+	{
+		return parse(get(kcKey(name, boss)));
+	}
+
+	/**
+	 * Get the kill counts of many players and bosses
+	 *
+	 * @param keys
+	 * @return the kill counts in the same order as the keys, null if unknown
+	 */
+	public Integer[] getKc(List<KillCountKey> keys)
+	{
+		List<String> redisKeys = new ArrayList<>(keys.size());
+		for (KillCountKey key : keys)
 		{
-			map = jedis.hgetAll("task." + name);
+			redisKeys.add(kcKey(key.getUsername(), key.getBoss()));
 		}
+		return parse(get(redisKeys));
+	}
+
+	public void setKc(String name, String boss, int kc)
+	{
+		set(kcKey(name, boss), Integer.toString(kc));
+	}
+
+	public Integer getQp(String name)
+	{
+		return parse(get("qp." + name));
+	}
+
+	public void setQp(String name, int qp)
+	{
+		set("qp." + name, Integer.toString(qp));
+	}
+
+	public Task getTask(String name)
+	{
+		Map<String, String> map = getHash("task." + name);
 
 		if (map.isEmpty())
 		{
@@ -114,59 +259,48 @@ public class ChatService
 			.put("location", task.getLocation())
 			.build();
 
-		String key = "task." + name;
-
-		try (Jedis jedis = jedisPool.getResource())
-		{
-			jedis.hmset(key, taskMap);
-			jedis.expire(key, (int) EXPIRE.getSeconds());
-		}
+		setHash("task." + name, taskMap);
 	}
 
 	public Integer getPb(String name, String boss)
 	{
-		String value;
-		try (Jedis jedis = jedisPool.getResource())
+		return parse(get(pbKey(name, boss)));
+	}
+
+	/**
+	 * Get the personal bests of many players and bosses
+	 *
+	 * @param keys
+	 * @return the personal bests in the same order as the keys, null if unknown
+	 */
+	public Integer[] getPb(List<KillCountKey> keys)
+	{
+		List<String> redisKeys = new ArrayList<>(keys.size());
+		for (KillCountKey key : keys)
 		{
-			value = jedis.get("pb." + boss + "." + name);
+			redisKeys.add(pbKey(key.getUsername(), key.getBoss()));
 		}
-		return value == null ? null : Integer.parseInt(value);
+		return parse(get(redisKeys));
 	}
 
 	public void setPb(String name, String boss, int pb)
 	{
-		try (Jedis jedis = jedisPool.getResource())
-		{
-			jedis.setex("pb." + boss + "." + name, (int) EXPIRE.getSeconds(), Integer.toString(pb));
-		}
+		set(pbKey(name, boss), Integer.toString(pb));
 	}
 
 	public Integer getGc(String name)
 	{
-		String value;
-		try (Jedis jedis = jedisPool.getResource())
-		{
-			value = jedis.get("gc." + name);
-		}
-		return value == null ? null : Integer.parseInt(value);
+		return parse(get("gc." + name));
 	}
 
 	public void setGc(String name, int gc)
 	{
-		try (Jedis jedis = jedisPool.getResource())
-		{
-			jedis.setex("gc." + name, (int) EXPIRE.getSeconds(), Integer.toString(gc));
-		}
+		set("gc." + name, Integer.toString(gc));
 	}
 
 	public Duels getDuels(String name)
 	{
-		Map<String, String> map;
-
-		try (Jedis jedis = jedisPool.getResource())
-		{
-			map = jedis.hgetAll("duels." + name);
-		}
+		Map<String, String> map = getHash("duels." + name);
 
 		if (map.isEmpty())
 		{
@@ -190,12 +324,6 @@ public class ChatService
 			.put("losingStreak", Integer.toString(duels.getLosingStreak()))
 			.build();
 
-		String key = "duels." + name;
-
-		try (Jedis jedis = jedisPool.getResource())
-		{
-			jedis.hmset(key, duelsMap);
-			jedis.expire(key, (int) EXPIRE.getSeconds());
-		}
+		setHash("duels." + name, duelsMap);
 	}
 }
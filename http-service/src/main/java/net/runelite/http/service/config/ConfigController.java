@@ -24,18 +24,28 @@
  */
 package net.runelite.http.service.config;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import net.runelite.http.api.RuneLiteAPI;
 import net.runelite.http.api.config.Configuration;
 import net.runelite.http.service.account.AuthFilter;
 import net.runelite.http.service.account.beans.SessionEntry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
+import static org.springframework.web.bind.annotation.RequestMethod.PATCH;
 import static org.springframework.web.bind.annotation.RequestMethod.PUT;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -54,7 +64,12 @@ public class ConfigController
 	}
 
 	@GetMapping
-	public Configuration get(HttpServletRequest request, HttpServletResponse response) throws IOException
+	public ResponseEntity<byte[]> get(
+		HttpServletRequest request,
+		HttpServletResponse response,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	) throws IOException
 	{
 		SessionEntry session = authFilter.handle(request, response);
 
@@ -63,7 +78,71 @@ public class ConfigController
 			return null;
 		}
 
-		return configService.get(session.getUser());
+		if (ifNoneMatch != null)
+		{
+			// check the client's copy against just the version first, which
+			// is cheaper than reading the whole config
+			String etag = etag(configService.getVersion(session.getUser()));
+			if (etag.equals(ifNoneMatch))
+			{
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+					.eTag(etag)
+					.build();
+			}
+		}
+
+		VersionedConfiguration versioned = configService.getVersioned(session.getUser());
+		String etag = etag(versioned.getVersion());
+		byte[] json = RuneLiteAPI.GSON.toJson(versioned.getConfiguration()).getBytes(StandardCharsets.UTF_8);
+
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+			.eTag(etag)
+			.contentType(MediaType.APPLICATION_JSON_UTF8)
+			.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+		if (acceptEncoding != null && acceptEncoding.contains("gzip"))
+		{
+			ByteArrayOutputStream bao = new ByteArrayOutputStream();
+			try (GZIPOutputStream out = new GZIPOutputStream(bao))
+			{
+				out.write(json);
+			}
+
+			return builder
+				.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+				.body(bao.toByteArray());
+		}
+
+		return builder.body(json);
+	}
+
+	private static String etag(long version)
+	{
+		return "\"" + version + "\"";
+	}
+
+	/**
+	 * Apply many changes to the config at once. Entries with a null value
+	 * are unset.
+	 */
+	@RequestMapping(method = PATCH)
+	public void patch(
+		HttpServletRequest request,
+		HttpServletResponse response,
+		@RequestBody Configuration changes
+	) throws IOException
+	{
+		SessionEntry session = authFilter.handle(request, response);
+
+		if (session == null)
+		{
+			return;
+		}
+
+		if (changes.getConfig() != null)
+		{
+			configService.setKeys(session.getUser(), changes.getConfig());
+		}
 	}
 
 	@RequestMapping(path = "/{key:.+}", method = PUT)
@@ -32,12 +32,16 @@ import com.mongodb.client.MongoDatabase;
 import static com.mongodb.client.model.Filters.eq;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import static com.mongodb.client.model.Projections.include;
 import com.mongodb.client.model.UpdateOptions;
+import static com.mongodb.client.model.Updates.combine;
+import static com.mongodb.client.model.Updates.inc;
 import static com.mongodb.client.model.Updates.set;
 import static com.mongodb.client.model.Updates.unset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -45,12 +49,16 @@ import net.runelite.http.api.RuneLiteAPI;
 import net.runelite.http.api.config.ConfigEntry;
 import net.runelite.http.api.config.Configuration;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ConfigService
 {
+	// incremented on every change to a config, to version it
+	private static final String VERSION = "_version";
+
 	private final Gson GSON = RuneLiteAPI.GSON;
 	private final UpdateOptions upsertUpdateOptions = new UpdateOptions().upsert(true);
 
@@ -76,10 +84,51 @@ public class ConfigService
 		return mongoCollection.find(eq("_userId", userId)).first();
 	}
 
+	/**
+	 * Get the version of a user's config, which changes whenever the config does
+	 *
+	 * @param userId
+	 * @return
+	 */
+	public long getVersion(int userId)
+	{
+		Document document = mongoCollection.find(eq("_userId", userId))
+			.projection(include(VERSION))
+			.first();
+		return version(document);
+	}
+
+	private static long version(Document document)
+	{
+		if (document == null)
+		{
+			return 0L;
+		}
+
+		Number version = (Number) document.get(VERSION);
+		return version == null ? 0L : version.longValue();
+	}
+
 	public Configuration get(int userId)
 	{
-		Map<String, Object> configMap = getConfig(userId);
+		return toConfiguration(getConfig(userId));
+	}
 
+	/**
+	 * Get a user's config along with its version, from a single read of the
+	 * config document
+	 *
+	 * @param userId
+	 * @return
+	 */
+	public VersionedConfiguration getVersioned(int userId)
+	{
+		Document document = getConfig(userId);
+		return new VersionedConfiguration(version(document), toConfiguration(document));
+	}
+
+	private Configuration toConfiguration(Map<String, Object> configMap)
+	{
 		if (configMap == null || configMap.isEmpty())
 		{
 			return new Configuration(Collections.emptyList());
@@ -121,26 +170,44 @@ public class ConfigService
 		return new Configuration(config);
 	}
 
-	public void setKey(
-		int userId,
-		String key,
-		@Nullable String value
-	)
+	/**
+	 * Get the path of a config key in the config document
+	 *
+	 * @param key
+	 * @return the path, or null if the key is not valid
+	 */
+	@Nullable
+	private static String path(String key)
 	{
 		if (key.startsWith("$") || key.startsWith("_"))
 		{
-			return;
+			return null;
 		}
 
 		String[] split = key.split("\\.", 2);
 		if (split.length != 2)
+		{
+			return null;
+		}
+
+		return split[0] + "." + split[1].replace('.', ':');
+	}
+
+	public void setKey(
+		int userId,
+		String key,
+		@Nullable String value
+	)
+	{
+		String path = path(key);
+		if (path == null)
 		{
 			return;
 		}
 
 		Object jsonValue = parseJsonString(value);
 		mongoCollection.updateOne(eq("_userId", userId),
-			set(split[0] + "." + split[1].replace('.', ':'), jsonValue),
+			combine(set(path, jsonValue), inc(VERSION, 1)),
 			upsertUpdateOptions);
 	}
 
@@ -149,19 +216,52 @@ public class ConfigService
 		String key
 	)
 	{
-		if (key.startsWith("$") || key.startsWith("_"))
+		String path = path(key);
+		if (path == null)
 		{
 			return;
 		}
 
-		String[] split = key.split("\\.", 2);
-		if (split.length != 2)
+		mongoCollection.updateOne(eq("_userId", userId),
+			combine(unset(path), inc(VERSION, 1)));
+	}
+
+	/**
+	 * Set or unset many keys in a single update. Entries with a null value
+	 * are unset. If a key is given more than once, the last entry wins.
+	 *
+	 * @param userId
+	 * @param entries
+	 */
+	public void setKeys(
+		int userId,
+		List<ConfigEntry> entries
+	)
+	{
+		Map<String, Bson> updates = new LinkedHashMap<>();
+		for (ConfigEntry entry : entries)
+		{
+			String path = entry.getKey() == null ? null : path(entry.getKey());
+			if (path == null)
+			{
+				continue;
+			}
+
+			updates.put(path, entry.getValue() == null
+				? unset(path)
+				: set(path, parseJsonString(entry.getValue())));
+		}
+
+		if (updates.isEmpty())
 		{
 			return;
 		}
 
+		List<Bson> update = new ArrayList<>(updates.values());
+		update.add(inc(VERSION, 1));
 		mongoCollection.updateOne(eq("_userId", userId),
-			unset(split[0] + "." + split[1].replace('.', ':')));
+			combine(update),
+			upsertUpdateOptions);
 	}
 
 	private static Object parseJsonString(String value)
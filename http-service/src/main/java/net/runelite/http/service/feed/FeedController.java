@@ -26,6 +26,7 @@ package net.runelite.http.service.feed;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
@@ -34,11 +35,14 @@ import net.runelite.http.api.feed.FeedResult;
 import net.runelite.http.service.feed.blog.BlogService;
 import net.runelite.http.service.feed.osrsnews.OSRSNewsService;
 import net.runelite.http.service.feed.twitter.TwitterService;
+import net.runelite.http.service.util.EncodedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -51,7 +55,12 @@ public class FeedController
 	private final TwitterService twitterService;
 	private final OSRSNewsService osrsNewsService;
 
-	private FeedResult feedResult;
+	// last items successfully fetched from each source
+	private List<FeedItem> blogPosts = Collections.emptyList();
+	private List<FeedItem> tweets = Collections.emptyList();
+	private List<FeedItem> news = Collections.emptyList();
+
+	private volatile EncodedResponse feedResponse;
 
 	@Autowired
 	public FeedController(BlogService blogService, TwitterService twitterService, OSRSNewsService osrsNewsService)
@@ -64,11 +73,10 @@ public class FeedController
 	@Scheduled(fixedDelay = 10 * 60 * 1000)
 	public void updateFeed()
 	{
-		List<FeedItem> items = new ArrayList<>();
-
+		// a source which fails keeps its previous items
 		try
 		{
-			items.addAll(blogService.getBlogPosts());
+			blogPosts = blogService.getBlogPosts();
 		}
 		catch (IOException e)
 		{
@@ -77,7 +85,7 @@ public class FeedController
 
 		try
 		{
-			items.addAll(twitterService.getTweets());
+			tweets = twitterService.getTweets();
 		}
 		catch (IOException e)
 		{
@@ -86,27 +94,39 @@ public class FeedController
 
 		try
 		{
-			items.addAll(osrsNewsService.getNews());
+			news = osrsNewsService.getNews();
 		}
 		catch (IOException e)
 		{
 			log.warn(e.getMessage());
 		}
 
-		feedResult = new FeedResult(items);
+		List<FeedItem> items = new ArrayList<>(blogPosts.size() + tweets.size() + news.size());
+		items.addAll(blogPosts);
+		items.addAll(tweets);
+		items.addAll(news);
+
+		if (items.isEmpty())
+		{
+			return;
+		}
+
+		feedResponse = EncodedResponse.of(new FeedResult(items));
 	}
 
 	@GetMapping
-	public ResponseEntity<FeedResult> getFeed()
+	public ResponseEntity<byte[]> getFeed(
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	)
 	{
-		if (feedResult == null)
+		EncodedResponse response = feedResponse;
+		if (response == null)
 		{
 			return ResponseEntity.notFound()
 				.build();
 		}
 
-		return ResponseEntity.ok()
-			.cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic())
-			.body(feedResult);
+		return response.toResponse(ifNoneMatch, acceptEncoding, CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic());
 	}
 }
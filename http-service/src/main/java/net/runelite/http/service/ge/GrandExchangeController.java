@@ -26,6 +26,7 @@ package net.runelite.http.service.ge;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -45,6 +46,12 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/ge")
 public class GrandExchangeController
 {
+	/**
+	 * Response header holding the cursor for the next page of trades
+	 */
+	private static final String NEXT_CURSOR = "RUNELITE-NEXT-CURSOR";
+	private static final int MAX_LIMIT = 1024;
+
 	private final GrandExchangeService grandExchangeService;
 	private final AuthFilter authFilter;
 
@@ -65,13 +72,16 @@ public class GrandExchangeController
 			return;
 		}
 
-		grandExchangeService.add(session.getUser(), grandExchangeTrade);
+		if (!grandExchangeService.add(session.getUser(), grandExchangeTrade))
+		{
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		}
 	}
 
 	@GetMapping
 	public Collection<GrandExchangeTrade> get(HttpServletRequest request, HttpServletResponse response,
 		@RequestParam(required = false, defaultValue = "1024") int limit,
-		@RequestParam(required = false, defaultValue = "0") int offset) throws IOException
+		@RequestParam(required = false) String before) throws IOException
 	{
 		SessionEntry session = authFilter.handle(request, response);
 
@@ -80,7 +90,27 @@ public class GrandExchangeController
 			return null;
 		}
 
-		return grandExchangeService.get(session.getUser(), limit, offset).stream()
+		TradeCursor cursor = null;
+		if (before != null)
+		{
+			cursor = TradeCursor.parse(before);
+			if (cursor == null)
+			{
+				response.sendError(HttpServletResponse.SC_BAD_REQUEST, "invalid cursor");
+				return null;
+			}
+		}
+
+		limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+		List<TradeEntry> trades = grandExchangeService.get(session.getUser(), limit, cursor);
+		if (trades.size() == limit)
+		{
+			// a full page, so there may be more
+			response.setHeader(NEXT_CURSOR, TradeCursor.of(trades.get(trades.size() - 1)).toString());
+		}
+
+		return trades.stream()
 			.map(GrandExchangeController::convert)
 			.collect(Collectors.toList());
 	}
@@ -24,16 +24,26 @@
  */
 package net.runelite.http.service.ge;
 
-import java.util.Collection;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.ge.GrandExchangeTrade;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
+@Slf4j
 public class GrandExchangeService
 {
 	private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS `ge_trades` (\n" +
@@ -45,17 +55,31 @@ public class GrandExchangeService
 		"  `price` int(11) NOT NULL,\n" +
 		"  `time` timestamp NOT NULL DEFAULT current_timestamp(),\n" +
 		"  PRIMARY KEY (`id`),\n" +
-		"  KEY `user_time` (`user`, `time`),\n" +
+		"  KEY `user_time` (`user`, `time`, `id`),\n" +
 		"  KEY `time` (`time`),\n" +
 		"  CONSTRAINT `ge_trades_ibfk_1` FOREIGN KEY (`user`) REFERENCES `users` (`id`)\n" +
 		") ENGINE=InnoDB;";
 
+	// max trades written per batch
+	private static final int BATCH_SIZE = 512;
+	// max trades deleted per expire statement
+	private static final int EXPIRE_CHUNK = 1000;
+	// how many flushes a failed batch is retried by before it is dropped
+	private static final int MAX_FLUSH_ATTEMPTS = 60;
+
 	private final Sql2o sql2o;
+	// trades waiting to be written
+	private final BlockingQueue<TradeEntry> queue;
+	// batch which failed to be written, retried by the next flush
+	private List<TradeEntry> failedBatch;
+	private int failedAttempts;
 
 	@Autowired
-	public GrandExchangeService(@Qualifier("Runelite SQL2O") Sql2o sql2o)
+	public GrandExchangeService(@Qualifier("Runelite SQL2O") Sql2o sql2o,
+		@Value("${ge.queue:8192}") int queueSize)
 	{
 		this.sql2o = sql2o;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
 
 		// Ensure necessary tables exist
 		try (Connection con = sql2o.open())
@@ -64,35 +88,149 @@ public class GrandExchangeService
 		}
 	}
 
-	public void add(int userId, GrandExchangeTrade grandExchangeTrade)
+	@PreDestroy
+	public void shutdown()
 	{
-		try (Connection con = sql2o.open())
+		flush();
+	}
+
+	/**
+	 * Queue a trade to be stored
+	 *
+	 * @param userId
+	 * @param grandExchangeTrade
+	 * @return false if the queue is full and the trade was not accepted
+	 */
+	public boolean add(int userId, GrandExchangeTrade grandExchangeTrade)
+	{
+		TradeEntry tradeEntry = new TradeEntry();
+		tradeEntry.setUser(userId);
+		tradeEntry.setAction(grandExchangeTrade.isBuy() ? TradeAction.BUY : TradeAction.SELL);
+		tradeEntry.setItem(grandExchangeTrade.getItemId());
+		tradeEntry.setQuantity(grandExchangeTrade.getQuantity());
+		tradeEntry.setPrice(grandExchangeTrade.getPrice());
+		tradeEntry.setTime(Instant.now());
+		return queue.offer(tradeEntry);
+	}
+
+	/**
+	 * Write all queued trades. If a batch can't be written, it is kept and
+	 * retried first by the following flushes, and nothing more is drained
+	 * from the queue until it is written, so submissions back up into the
+	 * queue instead of being lost.
+	 */
+	@Scheduled(fixedDelay = 1000)
+	public synchronized void flush()
+	{
+		if (failedBatch != null)
 		{
-			con.createQuery("insert into ge_trades (user, action, item, quantity, price) values (:user," +
-				" :action, :item, :quantity, :price)")
-				.addParameter("user", userId)
-				.addParameter("action", grandExchangeTrade.isBuy() ? "BUY" : "SELL")
-				.addParameter("item", grandExchangeTrade.getItemId())
-				.addParameter("quantity", grandExchangeTrade.getQuantity())
-				.addParameter("price", grandExchangeTrade.getPrice())
-				.executeUpdate();
+			if (!write(failedBatch))
+			{
+				if (++failedAttempts < MAX_FLUSH_ATTEMPTS)
+				{
+					return;
+				}
+
+				log.error("dropping {} trades after {} attempts", failedBatch.size(), failedAttempts);
+			}
+
+			failedBatch = null;
+			failedAttempts = 0;
+		}
+
+		List<TradeEntry> batch = new ArrayList<>(BATCH_SIZE);
+		while (queue.drainTo(batch, BATCH_SIZE) > 0)
+		{
+			if (!write(batch))
+			{
+				failedBatch = batch;
+				failedAttempts = 1;
+				return;
+			}
+
+			batch.clear();
 		}
 	}
 
-	public Collection<TradeEntry> get(int userId, int limit, int offset)
+	private boolean write(List<TradeEntry> batch)
+	{
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("insert into ge_trades (user, action, item, quantity, price, time) values (:user," +
+				" :action, :item, :quantity, :price, :time)");
+
+			for (TradeEntry tradeEntry : batch)
+			{
+				query
+					.addParameter("user", tradeEntry.getUser())
+					.addParameter("action", tradeEntry.getAction().name())
+					.addParameter("item", tradeEntry.getItem())
+					.addParameter("quantity", tradeEntry.getQuantity())
+					.addParameter("price", tradeEntry.getPrice())
+					.addParameter("time", tradeEntry.getTime())
+					.addToBatch();
+			}
+
+			query.executeBatch();
+			con.commit(false);
+			return true;
+		}
+		catch (RuntimeException ex)
+		{
+			log.warn("unable to store {} trades", batch.size(), ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Get a page of a user's trades, newest first
+	 *
+	 * @param userId
+	 * @param limit
+	 * @param before position to start after, as given by {@link TradeCursor#of(TradeEntry)}
+	 *               for the last trade of the previous page, or null for the first page
+	 * @return
+	 */
+	public List<TradeEntry> get(int userId, int limit, @Nullable TradeCursor before)
 	{
 		try (Connection con = sql2o.open())
 		{
-			return con.createQuery("select id, user, action, item, quantity, price, time from ge_trades where user = :user limit :limit offset :offset")
+			if (before == null)
+			{
+				return con.createQuery("select id, user, action, item, quantity, price, time from ge_trades where user = :user "
+					+ "order by time desc, id desc limit :limit")
+					.addParameter("user", userId)
+					.addParameter("limit", limit)
+					.executeAndFetch(TradeEntry.class);
+			}
+
+			return con.createQuery("select id, user, action, item, quantity, price, time from ge_trades where user = :user "
+				+ "and (time < :time or (time = :time and id < :id)) order by time desc, id desc limit :limit")
 				.addParameter("user", userId)
+				.addParameter("time", before.getTime())
+				.addParameter("id", before.getId())
 				.addParameter("limit", limit)
-				.addParameter("offset", offset)
 				.executeAndFetch(TradeEntry.class);
 		}
 	}
 
 	public void delete(int userId)
 	{
+		// drop queued trades so they are not written after the delete
+		synchronized (this)
+		{
+			queue.removeIf(tradeEntry -> tradeEntry.getUser() == userId);
+			if (failedBatch != null)
+			{
+				failedBatch.removeIf(tradeEntry -> tradeEntry.getUser() == userId);
+				if (failedBatch.isEmpty())
+				{
+					failedBatch = null;
+					failedAttempts = 0;
+				}
+			}
+		}
+
 		try (Connection con = sql2o.open())
 		{
 			con.createQuery("delete from ge_trades where user = :user")
@@ -106,8 +244,15 @@ public class GrandExchangeService
 	{
 		try (Connection con = sql2o.open())
 		{
-			con.createQuery("delete from ge_trades where time < current_timestamp - interval 1 month")
-				.executeUpdate();
+			Query query = con.createQuery("delete from ge_trades where time < current_timestamp - interval 1 month order by time limit :limit")
+				.addParameter("limit", EXPIRE_CHUNK);
+
+			int deleted;
+			do
+			{
+				deleted = query.executeUpdate().getResult();
+			}
+			while (deleted == EXPIRE_CHUNK);
 		}
 	}
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.ge;
+
+import java.time.Instant;
+import lombok.Value;
+
+/**
+ * Position in a user's trade history, ordered by time and then id
+ */
+@Value
+class TradeCursor
+{
+	private final Instant time;
+	private final int id;
+
+	static TradeCursor of(TradeEntry tradeEntry)
+	{
+		return new TradeCursor(tradeEntry.getTime(), tradeEntry.getId());
+	}
+
+	/**
+	 * Parse a cursor previously produced by {@link #toString()}
+	 *
+	 * @param cursor
+	 * @return the cursor, or null if it is malformed
+	 */
+	static TradeCursor parse(String cursor)
+	{
+		int idx = cursor.indexOf('_');
+		if (idx == -1)
+		{
+			return null;
+		}
+
+		try
+		{
+			Instant time = Instant.ofEpochMilli(Long.parseLong(cursor.substring(0, idx)));
+			int id = Integer.parseInt(cursor.substring(idx + 1));
+			return new TradeCursor(time, id);
+		}
+		catch (NumberFormatException ex)
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return time.toEpochMilli() + "_" + id;
+	}
+}
@@ -42,7 +42,7 @@ public class HiscoreService
 {
 	private final HiscoreClient hiscoreClient = new HiscoreClient();
 	private final LoadingCache<HiscoreKey, HiscoreResult> hiscoreCache = CacheBuilder.newBuilder()
-		.maximumSize(128)
+		.maximumSize(1024)
 		.expireAfterWrite(1, TimeUnit.MINUTES)
 		.build(
 			new CacheLoader<HiscoreKey, HiscoreResult>()
@@ -60,6 +60,15 @@ public class HiscoreService
 		return hiscoreClient.lookup(username, httpUrl);
 	}
 
+	/**
+	 * Look up a username on the hiscores. Concurrent lookups of the same
+	 * username and endpoint wait on a single request to the hiscores.
+	 *
+	 * @param username
+	 * @param endpoint
+	 * @return
+	 * @throws ExecutionException
+	 */
 	public HiscoreResult lookupUsername(String username, HiscoreEndpoint endpoint) throws ExecutionException
 	{
 		return hiscoreCache.get(new HiscoreKey(username, endpoint));
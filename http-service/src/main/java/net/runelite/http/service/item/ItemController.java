@@ -24,13 +24,12 @@
  */
 package net.runelite.http.service.item;
 
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletResponse;
@@ -39,9 +38,11 @@ import net.runelite.http.api.item.ItemPrice;
 import net.runelite.http.api.item.SearchResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -59,24 +60,10 @@ public class ItemController
 
 	private final ItemService itemService;
 
-	private final Supplier<ItemPrice[]> memorizedPrices;
-
 	@Autowired
 	public ItemController(ItemService itemService)
 	{
 		this.itemService = itemService;
-
-		memorizedPrices = Suppliers.memoizeWithExpiration(() -> itemService.fetchPrices().stream()
-			.map(priceEntry ->
-			{
-				ItemPrice itemPrice = new ItemPrice();
-				itemPrice.setId(priceEntry.getItem());
-				itemPrice.setName(priceEntry.getName());
-				itemPrice.setPrice(priceEntry.getPrice());
-				itemPrice.setTime(priceEntry.getTime());
-				return itemPrice;
-			})
-			.toArray(ItemPrice[]::new), 30, TimeUnit.MINUTES);
 	}
 
 	@GetMapping("/{itemId}")
@@ -131,6 +118,17 @@ public class ItemController
 				.build();
 		}
 
+		if (time == null)
+		{
+			ItemPrice itemPrice = itemService.getPriceSnapshot().get(itemId);
+			if (itemPrice != null)
+			{
+				return ResponseEntity.ok()
+					.cacheControl(CacheControl.maxAge(30, TimeUnit.MINUTES).cachePublic())
+					.body(itemPrice);
+			}
+		}
+
 		Instant now = Instant.now();
 
 		if (time != null && time.isAfter(now))
@@ -202,26 +200,21 @@ public class ItemController
 			itemIds = Arrays.copyOf(itemIds, MAX_BATCH_LOOKUP);
 		}
 
-		List<PriceEntry> prices = itemService.getPrices(itemIds);
-
-		return prices.stream()
-			.map(priceEntry ->
-			{
-				ItemPrice itemPrice = new ItemPrice();
-				itemPrice.setId(priceEntry.getItem());
-				itemPrice.setName(priceEntry.getName());
-				itemPrice.setPrice(priceEntry.getPrice());
-				itemPrice.setTime(priceEntry.getTime());
-				return itemPrice;
-			})
+		PriceSnapshot snapshot = itemService.getPriceSnapshot();
+		return Arrays.stream(itemIds)
+			.distinct()
+			.mapToObj(snapshot::get)
+			.filter(Objects::nonNull)
 			.toArray(ItemPrice[]::new);
 	}
 
 	@GetMapping("/prices")
-	public ResponseEntity<ItemPrice[]> prices()
+	public ResponseEntity<byte[]> prices(
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	)
 	{
-		return ResponseEntity.ok()
-			.cacheControl(CacheControl.maxAge(30, TimeUnit.MINUTES).cachePublic())
-			.body(memorizedPrices.get());
+		return itemService.getPriceSnapshot().getResponse()
+			.toResponse(ifNoneMatch, acceptEncoding, CacheControl.maxAge(30, TimeUnit.MINUTES).cachePublic());
 	}
 }
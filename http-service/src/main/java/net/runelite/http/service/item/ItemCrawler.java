@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+
+/**
+ * Runs item, search and price lookups on a fixed number of workers.
+ * Lookups equal to one which is already pending or running are coalesced
+ * into it, and requests to each host are rate limited.
+ */
+@Slf4j
+class ItemCrawler
+{
+	@FunctionalInterface
+	interface Handler
+	{
+		void handle(PendingLookup lookup) throws Exception;
+	}
+
+	private final int maxPending;
+	private final double requestsPerSecond;
+	private final Handler handler;
+	private final ExecutorService executor;
+
+	private final Set<PendingLookup> pending = ConcurrentHashMap.newKeySet();
+	private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger completed = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final long start = System.nanoTime();
+
+	ItemCrawler(int threads, int maxPending, double requestsPerSecond, Handler handler)
+	{
+		this.maxPending = maxPending;
+		this.requestsPerSecond = requestsPerSecond;
+		this.handler = handler;
+		this.executor = Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Queue a lookup
+	 *
+	 * @param lookup
+	 * @return false if the lookup was dropped because too many are pending
+	 */
+	boolean queue(PendingLookup lookup)
+	{
+		if (pending.contains(lookup))
+		{
+			return true;
+		}
+
+		if (pending.size() >= maxPending)
+		{
+			return false;
+		}
+
+		if (pending.add(lookup))
+		{
+			executor.execute(() -> run(lookup));
+		}
+		return true;
+	}
+
+	private void run(PendingLookup lookup)
+	{
+		running.incrementAndGet();
+		try
+		{
+			handler.handle(lookup);
+			completed.incrementAndGet();
+		}
+		catch (Exception ex)
+		{
+			log.warn("error running lookup {}", lookup, ex);
+			failed.incrementAndGet();
+		}
+		finally
+		{
+			running.decrementAndGet();
+			pending.remove(lookup);
+		}
+	}
+
+	/**
+	 * Block until a request may be made to the host of the given url
+	 *
+	 * @param url
+	 */
+	void acquire(HttpUrl url)
+	{
+		rateLimiters.computeIfAbsent(url.host(), host -> RateLimiter.create(requestsPerSecond))
+			.acquire();
+	}
+
+	void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
+	int getQueueDepth()
+	{
+		return Math.max(0, pending.size() - running.get());
+	}
+
+	int getRunning()
+	{
+		return running.get();
+	}
+
+	int getCompleted()
+	{
+		return completed.get();
+	}
+
+	int getFailed()
+	{
+		return failed.get();
+	}
+
+	/**
+	 * Get the average number of lookups completed per second
+	 *
+	 * @return
+	 */
+	double getThroughput()
+	{
+		long elapsed = System.nanoTime() - start;
+		return completed.get() / (double) Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(elapsed));
+	}
+}
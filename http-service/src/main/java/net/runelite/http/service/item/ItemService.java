@@ -30,15 +30,15 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.api.item.ItemPrice;
 import net.runelite.http.api.item.ItemType;
 import net.runelite.http.service.cache.CacheService;
 import okhttp3.HttpUrl;
@@ -46,6 +46,7 @@ import okhttp3.Request;
 import okhttp3.Response;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
@@ -83,20 +84,29 @@ public class ItemService
 		+ ") ENGINE=InnoDB";
 
 	private static final int MAX_PENDING = 512;
+	private static final int CRAWL_BATCH = 64;
 
 	private final Sql2o sql2o;
 	private final CacheService cacheService;
+	private final ItemCrawler crawler;
 
-	private final ConcurrentLinkedQueue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<PendingLookup>();
+	// fetched prices waiting to be written
+	private final ConcurrentLinkedQueue<PriceEntry> pendingPrices = new ConcurrentLinkedQueue<>();
 	private int[] tradeableItems;
-	private final Random random = new Random();
+	private int crawlIndex;
+
+	private final Object snapshotLock = new Object();
+	private volatile PriceSnapshot priceSnapshot;
 
 	@Autowired
 	public ItemService(@Qualifier("Runelite SQL2O") Sql2o sql2o,
-		CacheService cacheService)
+		CacheService cacheService,
+		@Value("${item.crawler.threads:4}") int crawlerThreads,
+		@Value("${item.crawler.rate:2}") double crawlerRate)
 	{
 		this.sql2o = sql2o;
 		this.cacheService = cacheService;
+		this.crawler = new ItemCrawler(crawlerThreads, MAX_PENDING, crawlerRate, this::lookup);
 
 		try (Connection con = sql2o.open())
 		{
@@ -108,6 +118,12 @@ public class ItemService
 		}
 	}
 
+	@PreDestroy
+	public void shutdown()
+	{
+		crawler.shutdown();
+	}
+
 	public ItemEntry getItem(int itemId)
 	{
 		try (Connection con = sql2o.open())
@@ -145,32 +161,114 @@ public class ItemService
 		}
 	}
 
-	public List<PriceEntry> getPrices(int... itemIds)
+	/**
+	 * Get the snapshot of the latest item prices, loading it from the
+	 * database on first use
+	 *
+	 * @return
+	 */
+	PriceSnapshot getPriceSnapshot()
 	{
-		try (Connection con = sql2o.open())
+		PriceSnapshot snapshot = priceSnapshot;
+		if (snapshot == null)
 		{
-			Set<Integer> seen = new HashSet<>();
-			List<PriceEntry> priceEntries = new ArrayList<>(itemIds.length);
-
-			for (int itemId : itemIds)
+			synchronized (snapshotLock)
 			{
-				if (seen.contains(itemId))
+				snapshot = priceSnapshot;
+				if (snapshot == null)
 				{
-					continue;
+					snapshot = priceSnapshot = loadPriceSnapshot();
 				}
-				seen.add(itemId);
+			}
+		}
+		return snapshot;
+	}
+
+	private PriceSnapshot loadPriceSnapshot()
+	{
+		ItemPrice[] prices = fetchPrices().stream()
+			.map(priceEntry ->
+			{
+				ItemPrice itemPrice = new ItemPrice();
+				itemPrice.setId(priceEntry.getItem());
+				itemPrice.setName(priceEntry.getName());
+				itemPrice.setPrice(priceEntry.getPrice());
+				itemPrice.setTime(priceEntry.getTime());
+				return itemPrice;
+			})
+			.toArray(ItemPrice[]::new);
+
+		log.debug("Loaded price snapshot of {} items", prices.length);
+		return new PriceSnapshot(prices);
+	}
 
-				PriceEntry priceEntry = getPrice(con, itemId, null);
+	/**
+	 * Fold newly stored prices into the price snapshot
+	 *
+	 * @param entries
+	 */
+	private void updatePriceSnapshot(List<PriceEntry> entries)
+	{
+		synchronized (snapshotLock)
+		{
+			PriceSnapshot snapshot = priceSnapshot;
+			if (snapshot == null)
+			{
+				// will be loaded from the database on first use
+				return;
+			}
+
+			Map<Integer, ItemPrice> latest = new HashMap<>();
+			for (PriceEntry entry : entries)
+			{
+				ItemPrice current = latest.get(entry.getItem());
+				if (current == null)
+				{
+					current = snapshot.get(entry.getItem());
+				}
 
-				if (priceEntry == null)
+				if (current != null && entry.getTime().isBefore(current.getTime()))
 				{
 					continue;
 				}
 
-				priceEntries.add(priceEntry);
+				String name;
+				if (current != null)
+				{
+					name = current.getName();
+				}
+				else
+				{
+					ItemEntry item = getItem(entry.getItem());
+					if (item == null)
+					{
+						continue;
+					}
+					name = item.getName();
+				}
+
+				ItemPrice itemPrice = new ItemPrice();
+				itemPrice.setId(entry.getItem());
+				itemPrice.setName(name);
+				itemPrice.setPrice(entry.getPrice());
+				itemPrice.setTime(entry.getTime());
+				latest.put(entry.getItem(), itemPrice);
 			}
 
-			return priceEntries;
+			if (!latest.isEmpty())
+			{
+				priceSnapshot = snapshot.merge(latest.values());
+			}
+		}
+	}
+
+	@Scheduled(initialDelay = 30 * 60 * 1000, fixedDelay = 30 * 60 * 1000)
+	public void reloadPriceSnapshot()
+	{
+		PriceSnapshot snapshot = loadPriceSnapshot();
+		synchronized (snapshotLock)
+		{
+			priceSnapshot = snapshot;
 		}
 	}
 
@@ -243,10 +341,10 @@ public class ItemService
 
 	public List<PriceEntry> fetchPrice(int itemId)
 	{
-		RSPrices rsprice;
+		List<PriceEntry> entries;
 		try
 		{
-			rsprice = fetchRSPrices(itemId);
+			entries = fetchPriceEntries(itemId);
 		}
 		catch (IOException ex)
 		{
@@ -254,41 +352,61 @@ public class ItemService
 			return null;
 		}
 
-		try (Connection con = sql2o.beginTransaction())
+		storePrices(entries);
+		return entries;
+	}
+
+	private List<PriceEntry> fetchPriceEntries(int itemId) throws IOException
+	{
+		RSPrices rsprice = fetchRSPrices(itemId);
+		List<PriceEntry> entries = new ArrayList<>();
+		Instant now = Instant.now();
+
+		for (Map.Entry<Long, Integer> entry : rsprice.getDaily().entrySet())
 		{
-			List<PriceEntry> entries = new ArrayList<>();
-			Instant now = Instant.now();
+			long ts = entry.getKey(); // ms since epoch
+			int price = entry.getValue(); // gp
 
-			Query query = con.createQuery("insert into prices (item, price, time, fetched_time) values (:item, :price, :time, :fetched_time) "
-				+ "ON DUPLICATE KEY UPDATE price = VALUES(price), fetched_time = VALUES(fetched_time)");
+			Instant time = Instant.ofEpochMilli(ts);
 
-			for (Map.Entry<Long, Integer> entry : rsprice.getDaily().entrySet())
-			{
-				long ts = entry.getKey(); // ms since epoch
-				int price = entry.getValue(); // gp
+			PriceEntry priceEntry = new PriceEntry();
+			priceEntry.setItem(itemId);
+			priceEntry.setPrice(price);
+			priceEntry.setTime(time);
+			priceEntry.setFetched_time(now);
+			entries.add(priceEntry);
+		}
 
-				Instant time = Instant.ofEpochMilli(ts);
+		return entries;
+	}
 
-				PriceEntry priceEntry = new PriceEntry();
-				priceEntry.setItem(itemId);
-				priceEntry.setPrice(price);
-				priceEntry.setTime(time);
-				priceEntry.setFetched_time(now);
-				entries.add(priceEntry);
+	private void storePrices(List<PriceEntry> entries)
+	{
+		if (entries.isEmpty())
+		{
+			return;
+		}
 
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("insert into prices (item, price, time, fetched_time) values (:item, :price, :time, :fetched_time) "
+				+ "ON DUPLICATE KEY UPDATE price = VALUES(price), fetched_time = VALUES(fetched_time)");
+
+			for (PriceEntry priceEntry : entries)
+			{
 				query
-					.addParameter("item", itemId)
-					.addParameter("price", price)
-					.addParameter("time", time)
-					.addParameter("fetched_time", now)
+					.addParameter("item", priceEntry.getItem())
+					.addParameter("price", priceEntry.getPrice())
+					.addParameter("time", priceEntry.getTime())
+					.addParameter("fetched_time", priceEntry.getFetched_time())
 					.addToBatch();
 			}
 
 			query.executeBatch();
 			con.commit(false);
-
-			return entries;
 		}
+
+		updatePriceSnapshot(entries);
 	}
 
 	public List<PriceEntry> fetchPrices()
@@ -373,6 +491,8 @@ public class ItemService
 
 	private <T> T fetchJson(Request request, Class<T> clazz) throws IOException
 	{
+		crawler.acquire(request.url());
+
 		try (Response response = RuneLiteAPI.CLIENT.newCall(request).execute())
 		{
 			if (!response.isSuccessful())
@@ -397,6 +517,8 @@ public class ItemService
 			.url(httpUrl)
 			.build();
 
+		crawler.acquire(httpUrl);
+
 		try (Response response = RuneLiteAPI.CLIENT.newCall(request).execute())
 		{
 			if (!response.isSuccessful())
@@ -410,11 +532,7 @@ public class ItemService
 
 	public void queueSearch(String search)
 	{
-		if (pendingLookups.size() < MAX_PENDING)
-		{
-			pendingLookups.add(new PendingLookup(search, PendingLookup.Type.SEARCH));
-		}
-		else
+		if (!crawler.queue(new PendingLookup(search, PendingLookup.Type.SEARCH)))
 		{
 			log.debug("Dropping pending search for {}", search);
 		}
@@ -422,67 +540,113 @@ public class ItemService
 
 	public void queueItem(int itemId)
 	{
-		if (pendingLookups.size() < MAX_PENDING)
-		{
-			pendingLookups.add(new PendingLookup(itemId, PendingLookup.Type.ITEM));
-		}
-		else
+		if (!crawler.queue(new PendingLookup(itemId, PendingLookup.Type.ITEM)))
 		{
 			log.debug("Dropping pending item lookup for {}", itemId);
 		}
 	}
 
-	@Scheduled(fixedDelay = 5000)
-	public void check()
+	private void lookup(PendingLookup pendingLookup) throws IOException
 	{
-		PendingLookup pendingLookup = pendingLookups.poll();
-		if (pendingLookup == null)
-		{
-			return;
-		}
-
 		switch (pendingLookup.getType())
 		{
 			case SEARCH:
-				try
-				{
-					RSSearch reSearch = fetchRSSearch(pendingLookup.getSearch());
-
-					batchInsertItems(reSearch);
-				}
-				catch (IOException ex)
-				{
-					log.warn("error while searching items", ex);
-				}
+				RSSearch reSearch = fetchRSSearch(pendingLookup.getSearch());
+				batchInsertItems(reSearch);
 				break;
 			case ITEM:
 				fetchItem(pendingLookup.getItemId());
 				break;
+			case PRICE:
+				pendingPrices.addAll(fetchPriceEntries(pendingLookup.getItemId()));
+				break;
 		}
 	}
 
+	@Scheduled(fixedDelay = 5000)
+	public void flushPrices()
+	{
+		List<PriceEntry> entries = new ArrayList<>();
+		for (PriceEntry entry; (entry = pendingPrices.poll()) != null; )
+		{
+			entries.add(entry);
+		}
+
+		storePrices(entries);
+	}
+
+	/**
+	 * Get the number of lookups waiting for the crawler
+	 *
+	 * @return
+	 */
+	public int getCrawlerQueueDepth()
+	{
+		return crawler.getQueueDepth();
+	}
+
+	public int getCrawlerRunning()
+	{
+		return crawler.getRunning();
+	}
+
+	public int getCrawlerCompleted()
+	{
+		return crawler.getCompleted();
+	}
+
+	public int getCrawlerFailed()
+	{
+		return crawler.getFailed();
+	}
+
+	/**
+	 * Get the average number of lookups the crawler completes per second
+	 *
+	 * @return
+	 */
+	public double getCrawlerThroughput()
+	{
+		return crawler.getThroughput();
+	}
+
+	@Scheduled(fixedDelay = 60_000)
+	public void logCrawler()
+	{
+		log.info("Price crawler: {} queued, {} running, {} completed, {} failed, {}/s",
+			getCrawlerQueueDepth(), getCrawlerRunning(), getCrawlerCompleted(), getCrawlerFailed(),
+			String.format("%.2f", getCrawlerThroughput()));
+	}
+
 	@Scheduled(fixedDelay = 20_000)
 	public void crawlPrices()
 	{
+		int[] tradeableItems = this.tradeableItems;
 		if (tradeableItems == null || tradeableItems.length == 0)
 		{
 			return;
 		}
 
-		int idx = random.nextInt(tradeableItems.length);
-		int id = tradeableItems[idx];
-
-		if (getItem(id) == null)
+		// walk the tradeable items in order so every price is refreshed once per pass,
+		// leaving room in the crawler for user lookups
+		for (int i = 0; i < tradeableItems.length && crawler.getQueueDepth() < CRAWL_BATCH; ++i)
 		{
-			// This is a new item..
-			log.debug("Fetching new item {}", id);
-			queueItem(id);
-			return;
-		}
+			int id = tradeableItems[crawlIndex % tradeableItems.length];
 
-		log.debug("Fetching price for {}", id);
+			if (getItem(id) == null)
+			{
+				// This is a new item..
+				log.debug("Fetching new item {}", id);
+				queueItem(id);
+			}
+			else if (!crawler.queue(new PendingLookup(id, PendingLookup.Type.PRICE)))
+			{
+				// the crawler is saturated, pick up from here on the next run
+				break;
+			}
 
-		fetchPrice(id);
+			crawlIndex = (crawlIndex + 1) % tradeableItems.length;
+		}
 	}
 
 	@Scheduled(fixedDelay = 1_8000_000) // 30 minutes
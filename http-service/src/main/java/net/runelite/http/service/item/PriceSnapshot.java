@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.Stream;
+import net.runelite.http.api.item.ItemPrice;
+import net.runelite.http.service.util.EncodedResponse;
+
+/**
+ * Immutable snapshot of the latest price of every item, along with the
+ * serialized price list
+ */
+class PriceSnapshot
+{
+	private final ItemPrice[] byId; // indexed by item id
+	private final EncodedResponse response;
+
+	PriceSnapshot(ItemPrice[] prices)
+	{
+		int max = -1;
+		for (ItemPrice price : prices)
+		{
+			max = Math.max(max, price.getId());
+		}
+
+		this.byId = new ItemPrice[max + 1];
+		for (ItemPrice price : prices)
+		{
+			byId[price.getId()] = price;
+		}
+
+		this.response = EncodedResponse.of(prices);
+	}
+
+	/**
+	 * Create a new snapshot with the given prices replacing the current
+	 * prices of their items. Prices older than the current price of their
+	 * item are ignored.
+	 *
+	 * @param updates
+	 * @return
+	 */
+	PriceSnapshot merge(Collection<ItemPrice> updates)
+	{
+		ItemPrice[] merged = Arrays.copyOf(byId, Math.max(byId.length,
+			updates.stream().mapToInt(ItemPrice::getId).max().orElse(-1) + 1));
+		for (ItemPrice price : updates)
+		{
+			ItemPrice current = merged[price.getId()];
+			if (current == null || !price.getTime().isBefore(current.getTime()))
+			{
+				merged[price.getId()] = price;
+			}
+		}
+
+		return new PriceSnapshot(Stream.of(merged)
+			.filter(Objects::nonNull)
+			.toArray(ItemPrice[]::new));
+	}
+
+	ItemPrice get(int itemId)
+	{
+		return itemId >= 0 && itemId < byId.length ? byId[itemId] : null;
+	}
+
+	EncodedResponse getResponse()
+	{
+		return response;
+	}
+}
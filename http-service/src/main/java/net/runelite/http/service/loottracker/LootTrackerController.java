@@ -62,7 +62,12 @@ public class LootTrackerController
 			return;
 		}
 
-		service.store(record, e.getUser());
+		if (!service.store(record, e.getUser()))
+		{
+			response.setStatus(HttpStatusCodes.STATUS_CODE_SERVICE_UNAVAILABLE);
+			return;
+		}
+
 		response.setStatus(HttpStatusCodes.STATUS_CODE_OK);
 	}
 
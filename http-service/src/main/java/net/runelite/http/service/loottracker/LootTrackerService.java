@@ -28,10 +28,20 @@ package net.runelite.http.service.loottracker;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.loottracker.GameItem;
 import net.runelite.http.api.loottracker.LootRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
@@ -39,6 +49,7 @@ import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
+@Slf4j
 public class LootTrackerService
 {
 	// Table for storing individual LootRecords
@@ -63,20 +74,38 @@ public class LootTrackerService
 		+ ") ENGINE=InnoDB";
 
 	// Queries for inserting kills
-	private static final String INSERT_KILL_QUERY = "INSERT INTO kills (accountId, type, eventId) VALUES (:accountId, :type, :eventId)";
-	private static final String INSERT_DROP_QUERY = "INSERT INTO drops (killId, itemId, itemQuantity) VALUES (LAST_INSERT_ID(), :itemId, :itemQuantity)";
+	private static final String INSERT_KILL_QUERY = "INSERT INTO kills (accountId, type, eventId) VALUES ";
+	private static final String INSERT_DROP_QUERY = "INSERT INTO drops (killId, itemId, itemQuantity) VALUES (:killId, :itemId, :itemQuantity)";
 
 	private static final String SELECT_LOOT_QUERY = "SELECT killId,time,type,eventId,itemId,itemQuantity FROM kills JOIN drops ON drops.killId = kills.id WHERE accountId = :accountId ORDER BY TIME DESC LIMIT :limit OFFSET :offset";
 
 	private static final String DELETE_LOOT_ACCOUNT = "DELETE FROM kills WHERE accountId = :accountId";
 	private static final String DELETE_LOOT_ACCOUNT_EVENTID = "DELETE FROM kills WHERE accountId = :accountId AND eventId = :eventId";
+	private static final String DELETE_EXPIRED = "DELETE FROM kills WHERE time < current_timestamp() - interval 30 day ORDER BY time LIMIT :limit";
+
+	// max kills written per insert statement
+	private static final int BATCH_SIZE = 256;
+	// max kills deleted per expire statement
+	private static final int EXPIRE_CHUNK = 1000;
+	// how long a submission may wait for space in the queue
+	private static final long QUEUE_TIMEOUT_MS = 1000;
+	// how many flushes a failed batch is retried by before it is dropped
+	private static final int MAX_FLUSH_ATTEMPTS = 60;
 
 	private final Sql2o sql2o;
+	private final BlockingQueue<PendingLoot> queue;
+	private final ExecutorService writer = Executors.newSingleThreadExecutor();
+	private final AtomicBoolean flushQueued = new AtomicBoolean();
+	// batch which failed to be written, retried by the next flush
+	private List<PendingLoot> failedBatch;
+	private int failedAttempts;
 
 	@Autowired
-	public LootTrackerService(@Qualifier("Runelite SQL2O") Sql2o sql2o)
+	public LootTrackerService(@Qualifier("Runelite SQL2O") Sql2o sql2o,
+		@Value("${loottracker.queue:8192}") int queueSize)
 	{
 		this.sql2o = sql2o;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
 
 		// Ensure necessary tables exist
 		try (Connection con = sql2o.open())
@@ -86,35 +115,155 @@ public class LootTrackerService
 		}
 	}
 
+	@PreDestroy
+	public void shutdown()
+	{
+		writer.shutdown();
+		flush();
+	}
+
 	/**
-	 * Store LootRecord
+	 * Queue a LootRecord to be stored. The record is written by the next
+	 * flush, which happens once enough records are queued or periodically.
 	 *
 	 * @param record    LootRecord to store
 	 * @param accountId runelite account id to tie data too
+	 * @return false if the queue is full and the record was not accepted
 	 */
-	public void store(LootRecord record, int accountId)
+	public boolean store(LootRecord record, int accountId)
+	{
+		try
+		{
+			if (!queue.offer(new PendingLoot(accountId, record), QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+			{
+				return false;
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		if (queue.size() >= BATCH_SIZE && flushQueued.compareAndSet(false, true))
+		{
+			writer.execute(() ->
+			{
+				flushQueued.set(false);
+				flush();
+			});
+		}
+
+		return true;
+	}
+
+	/**
+	 * Write all queued LootRecords. If a batch can't be written, it is kept
+	 * and retried first by the following flushes, and nothing more is
+	 * drained from the queue until it is written, so submissions back up
+	 * into the queue instead of being lost.
+	 */
+	@Scheduled(fixedDelay = 1000)
+	public synchronized void flush()
+	{
+		if (failedBatch != null)
+		{
+			if (!write(failedBatch))
+			{
+				if (++failedAttempts < MAX_FLUSH_ATTEMPTS)
+				{
+					return;
+				}
+
+				log.error("dropping {} loot records after {} attempts", failedBatch.size(), failedAttempts);
+			}
+
+			failedBatch = null;
+			failedAttempts = 0;
+		}
+
+		List<PendingLoot> batch = new ArrayList<>(BATCH_SIZE);
+		while (queue.drainTo(batch, BATCH_SIZE) > 0)
+		{
+			if (!write(batch))
+			{
+				failedBatch = batch;
+				failedAttempts = 1;
+				return;
+			}
+
+			batch.clear();
+		}
+	}
+
+	private boolean write(List<PendingLoot> batch)
+	{
+		try
+		{
+			insert(batch);
+			return true;
+		}
+		catch (RuntimeException ex)
+		{
+			log.warn("unable to store {} loot records", batch.size(), ex);
+			return false;
+		}
+	}
+
+	private void insert(List<PendingLoot> batch)
 	{
+		StringBuilder sb = new StringBuilder(INSERT_KILL_QUERY);
+		for (int i = 0; i < batch.size(); ++i)
+		{
+			if (i > 0)
+			{
+				sb.append(", ");
+			}
+			sb.append("(:accountId").append(i)
+				.append(", :type").append(i)
+				.append(", :eventId").append(i)
+				.append(')');
+		}
+
 		try (Connection con = sql2o.beginTransaction())
 		{
-			// Kill Entry Query
-			con.createQuery(INSERT_KILL_QUERY, true)
-				.addParameter("accountId", accountId)
-				.addParameter("type", record.getType())
-				.addParameter("eventId", record.getEventId())
-				.executeUpdate();
+			Query insertKills = con.createQuery(sb.toString(), true);
+			for (int i = 0; i < batch.size(); ++i)
+			{
+				PendingLoot pending = batch.get(i);
+				insertKills
+					.addParameter("accountId" + i, pending.getAccountId())
+					.addParameter("type" + i, pending.getRecord().getType())
+					.addParameter("eventId" + i, pending.getRecord().getEventId());
+			}
+
+			List<Integer> killIds = insertKills.executeUpdate().getKeys(Integer.class);
+			if (killIds.size() != batch.size())
+			{
+				throw new IllegalStateException("expected " + batch.size() + " kill ids, got " + killIds.size());
+			}
 
 			Query insertDrop = con.createQuery(INSERT_DROP_QUERY);
+			boolean hasDrops = false;
 
 			// Append all queries for inserting drops
-			for (GameItem drop : record.getDrops())
+			for (int i = 0; i < batch.size(); ++i)
 			{
-				insertDrop
-					.addParameter("itemId", drop.getId())
-					.addParameter("itemQuantity", drop.getQty())
-					.addToBatch();
+				for (GameItem drop : batch.get(i).getRecord().getDrops())
+				{
+					insertDrop
+						.addParameter("killId", killIds.get(i))
+						.addParameter("itemId", drop.getId())
+						.addParameter("itemQuantity", drop.getQty())
+						.addToBatch();
+					hasDrops = true;
+				}
 			}
 
-			insertDrop.executeBatch();
+			if (hasDrops)
+			{
+				insertDrop.executeBatch();
+			}
 			con.commit(false);
 		}
 	}
@@ -166,6 +315,23 @@ public class LootTrackerService
 
 	public void delete(int accountId, String eventId)
 	{
+		// drop queued records so they are not written after the delete
+		Predicate<PendingLoot> deleted = pending -> pending.getAccountId() == accountId
+			&& (eventId == null || eventId.equals(pending.getRecord().getEventId()));
+		synchronized (this)
+		{
+			queue.removeIf(deleted);
+			if (failedBatch != null)
+			{
+				failedBatch.removeIf(deleted);
+				if (failedBatch.isEmpty())
+				{
+					failedBatch = null;
+					failedAttempts = 0;
+				}
+			}
+		}
+
 		try (Connection con = sql2o.open())
 		{
 			if (eventId == null)
@@ -189,8 +355,18 @@ public class LootTrackerService
 	{
 		try (Connection con = sql2o.open())
 		{
-			con.createQuery("delete from kills where time < current_timestamp() - interval 30 day")
-				.executeUpdate();
+			Query query = con.createQuery(DELETE_EXPIRED)
+				.addParameter("limit", EXPIRE_CHUNK);
+
+			int deleted, total = 0;
+			do
+			{
+				deleted = query.executeUpdate().getResult();
+				total += deleted;
+			}
+			while (deleted == EXPIRE_CHUNK);
+
+			log.debug("Expired {} kills", total);
 		}
 	}
 }
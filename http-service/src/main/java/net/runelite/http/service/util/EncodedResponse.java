@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.util;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import net.runelite.http.api.RuneLiteAPI;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A json response body encoded ahead of time, along with its gzip
+ * compressed form and an etag
+ */
+public class EncodedResponse
+{
+	private final byte[] json;
+	private final byte[] gzip;
+	private final String etag;
+
+	private EncodedResponse(byte[] json)
+	{
+		this.json = json;
+		this.gzip = gzip(json);
+		this.etag = "\"" + Hashing.murmur3_128().hashBytes(json) + "\"";
+	}
+
+	public static EncodedResponse of(Object body)
+	{
+		return new EncodedResponse(RuneLiteAPI.GSON.toJson(body).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public String getEtag()
+	{
+		return etag;
+	}
+
+	/**
+	 * Build a response for a request, which is not modified if the request
+	 * already has this body and is gzip compressed if the request accepts it
+	 *
+	 * @param ifNoneMatch    If-None-Match header of the request
+	 * @param acceptEncoding Accept-Encoding header of the request
+	 * @param cacheControl
+	 * @return
+	 */
+	public ResponseEntity<byte[]> toResponse(@Nullable String ifNoneMatch, @Nullable String acceptEncoding, CacheControl cacheControl)
+	{
+		if (etag.equals(ifNoneMatch))
+		{
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+				.cacheControl(cacheControl)
+				.eTag(etag)
+				.build();
+		}
+
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+			.cacheControl(cacheControl)
+			.eTag(etag)
+			.contentType(MediaType.APPLICATION_JSON_UTF8)
+			.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+		if (acceptEncoding != null && acceptEncoding.contains("gzip"))
+		{
+			return builder
+				.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+				.body(gzip);
+		}
+
+		return builder.body(json);
+	}
+
+	private static byte[] gzip(byte[] data)
+	{
+		ByteArrayOutputStream bao = new ByteArrayOutputStream(data.length / 4);
+		try (GZIPOutputStream out = new GZIPOutputStream(bao))
+		{
+			out.write(data);
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+		return bao.toByteArray();
+	}
+}
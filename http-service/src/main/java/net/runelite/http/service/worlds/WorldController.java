@@ -25,36 +25,83 @@
 package net.runelite.http.service.worlds;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
-import net.runelite.http.api.worlds.WorldResult;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.http.service.util.EncodedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/worlds")
+@Slf4j
 public class WorldController
 {
 	@Autowired
 	private WorldsService worldsService;
 
-	private WorldResult worldResult;
+	// the world list last fetched, and the response built from it
+	private byte[] worldData;
+	private volatile EncodedResponse worldResponse;
 
 	@GetMapping
-	public ResponseEntity<WorldResult> listWorlds() throws IOException
+	public ResponseEntity<byte[]> listWorlds(
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+	) throws IOException
 	{
-		return ResponseEntity.ok()
-			.cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic())
-			.body(worldResult);
+		EncodedResponse response = worldResponse;
+		if (response == null)
+		{
+			response = loadWorlds();
+		}
+
+		return response.toResponse(ifNoneMatch, acceptEncoding, CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic());
+	}
+
+	/**
+	 * Get the world list response, fetching it if it has not been yet.
+	 * Concurrent callers wait on a single fetch.
+	 */
+	private synchronized EncodedResponse loadWorlds() throws IOException
+	{
+		if (worldResponse == null)
+		{
+			updateWorlds();
+		}
+		return worldResponse;
+	}
+
+	private synchronized void updateWorlds() throws IOException
+	{
+		byte[] data = worldsService.fetchWorlds();
+		if (Arrays.equals(data, worldData))
+		{
+			return;
+		}
+
+		worldResponse = EncodedResponse.of(worldsService.parseWorlds(data));
+		worldData = data;
 	}
 
 	@Scheduled(fixedDelay = 60_000L)
-	public void refreshWorlds() throws IOException
+	public void refreshWorlds()
 	{
-		worldResult = worldsService.getWorlds();
+		try
+		{
+			updateWorlds();
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			// keep serving the last world list
+			log.warn("unable to refresh world list", ex);
+		}
 	}
 }
@@ -46,18 +46,35 @@ public class WorldsService
 	private HttpUrl url = WORLD_URL;
 
 	public WorldResult getWorlds() throws IOException
+	{
+		return parseWorlds(fetchWorlds());
+	}
+
+	/**
+	 * Fetch the binary world list
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] fetchWorlds() throws IOException
 	{
 		Request okrequest = new Request.Builder()
 			.url(url)
 			.build();
 
-		byte[] b;
-
 		try (Response okresponse = RuneLiteAPI.CLIENT.newCall(okrequest).execute())
 		{
-			b = okresponse.body().bytes();
+			if (!okresponse.isSuccessful())
+			{
+				throw new IOException("Unsuccessful response fetching world list: " + okresponse.message());
+			}
+
+			return okresponse.body().bytes();
 		}
+	}
 
+	public WorldResult parseWorlds(byte[] b)
+	{
 		List<World> worlds = new ArrayList<>();
 		ByteBuffer buf = ByteBuffer.wrap(b);
 
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.xp;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import net.runelite.http.service.xp.beans.XpEntity;
+
+/**
+ * Encodes xp snapshots as the difference from a keyframe. A delta is a
+ * bitmask of the fields which differ followed by the zigzag varint
+ * encoded difference of each of those fields.
+ */
+class XpDelta
+{
+	static final int FIELDS = 47;
+
+	private XpDelta()
+	{
+	}
+
+	static int[] values(XpEntity xp)
+	{
+		return new int[]{
+			xp.getAttack_xp(),
+			xp.getDefence_xp(),
+			xp.getStrength_xp(),
+			xp.getHitpoints_xp(),
+			xp.getRanged_xp(),
+			xp.getPrayer_xp(),
+			xp.getMagic_xp(),
+			xp.getCooking_xp(),
+			xp.getWoodcutting_xp(),
+			xp.getFletching_xp(),
+			xp.getFishing_xp(),
+			xp.getFiremaking_xp(),
+			xp.getCrafting_xp(),
+			xp.getSmithing_xp(),
+			xp.getMining_xp(),
+			xp.getHerblore_xp(),
+			xp.getAgility_xp(),
+			xp.getThieving_xp(),
+			xp.getSlayer_xp(),
+			xp.getFarming_xp(),
+			xp.getRunecraft_xp(),
+			xp.getHunter_xp(),
+			xp.getConstruction_xp(),
+			xp.getOverall_rank(),
+			xp.getAttack_rank(),
+			xp.getDefence_rank(),
+			xp.getStrength_rank(),
+			xp.getHitpoints_rank(),
+			xp.getRanged_rank(),
+			xp.getPrayer_rank(),
+			xp.getMagic_rank(),
+			xp.getCooking_rank(),
+			xp.getWoodcutting_rank(),
+			xp.getFletching_rank(),
+			xp.getFishing_rank(),
+			xp.getFiremaking_rank(),
+			xp.getCrafting_rank(),
+			xp.getSmithing_rank(),
+			xp.getMining_rank(),
+			xp.getHerblore_rank(),
+			xp.getAgility_rank(),
+			xp.getThieving_rank(),
+			xp.getSlayer_rank(),
+			xp.getFarming_rank(),
+			xp.getRunecraft_rank(),
+			xp.getHunter_rank(),
+			xp.getConstruction_rank()
+		};
+	}
+
+	/**
+	 * Set the xp and ranks of an entity, and recompute its overall xp
+	 *
+	 * @param xp
+	 * @param values
+	 */
+	static void apply(XpEntity xp, int[] values)
+	{
+		xp.setAttack_xp(values[0]);
+		xp.setDefence_xp(values[1]);
+		xp.setStrength_xp(values[2]);
+		xp.setHitpoints_xp(values[3]);
+		xp.setRanged_xp(values[4]);
+		xp.setPrayer_xp(values[5]);
+		xp.setMagic_xp(values[6]);
+		xp.setCooking_xp(values[7]);
+		xp.setWoodcutting_xp(values[8]);
+		xp.setFletching_xp(values[9]);
+		xp.setFishing_xp(values[10]);
+		xp.setFiremaking_xp(values[11]);
+		xp.setCrafting_xp(values[12]);
+		xp.setSmithing_xp(values[13]);
+		xp.setMining_xp(values[14]);
+		xp.setHerblore_xp(values[15]);
+		xp.setAgility_xp(values[16]);
+		xp.setThieving_xp(values[17]);
+		xp.setSlayer_xp(values[18]);
+		xp.setFarming_xp(values[19]);
+		xp.setRunecraft_xp(values[20]);
+		xp.setHunter_xp(values[21]);
+		xp.setConstruction_xp(values[22]);
+		xp.setOverall_rank(values[23]);
+		xp.setAttack_rank(values[24]);
+		xp.setDefence_rank(values[25]);
+		xp.setStrength_rank(values[26]);
+		xp.setHitpoints_rank(values[27]);
+		xp.setRanged_rank(values[28]);
+		xp.setPrayer_rank(values[29]);
+		xp.setMagic_rank(values[30]);
+		xp.setCooking_rank(values[31]);
+		xp.setWoodcutting_rank(values[32]);
+		xp.setFletching_rank(values[33]);
+		xp.setFishing_rank(values[34]);
+		xp.setFiremaking_rank(values[35]);
+		xp.setCrafting_rank(values[36]);
+		xp.setSmithing_rank(values[37]);
+		xp.setMining_rank(values[38]);
+		xp.setHerblore_rank(values[39]);
+		xp.setAgility_rank(values[40]);
+		xp.setThieving_rank(values[41]);
+		xp.setSlayer_rank(values[42]);
+		xp.setFarming_rank(values[43]);
+		xp.setRunecraft_rank(values[44]);
+		xp.setHunter_rank(values[45]);
+		xp.setConstruction_rank(values[46]);
+
+		int overall = 0;
+		for (int i = 0; i < 23; ++i)
+		{
+			overall += values[i];
+		}
+		xp.setOverall_xp(overall);
+	}
+
+	static byte[] encode(int[] keyframe, int[] values)
+	{
+		long mask = 0;
+		for (int i = 0; i < FIELDS; ++i)
+		{
+			if (values[i] != keyframe[i])
+			{
+				mask |= 1L << i;
+			}
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Long.BYTES + FIELDS);
+		for (int i = 0; i < Long.BYTES; ++i)
+		{
+			out.write((int) (mask >>> (i * 8)));
+		}
+
+		for (int i = 0; i < FIELDS; ++i)
+		{
+			if ((mask & (1L << i)) != 0)
+			{
+				writeVarint(out, zigzag(values[i] - keyframe[i]));
+			}
+		}
+
+		return out.toByteArray();
+	}
+
+	static int[] decode(int[] keyframe, byte[] delta)
+	{
+		int[] values = Arrays.copyOf(keyframe, FIELDS);
+		ByteBuffer buf = ByteBuffer.wrap(delta);
+
+		long mask = 0;
+		for (int i = 0; i < Long.BYTES; ++i)
+		{
+			mask |= (buf.get() & 0xFFL) << (i * 8);
+		}
+
+		for (int i = 0; i < FIELDS; ++i)
+		{
+			if ((mask & (1L << i)) != 0)
+			{
+				values[i] = keyframe[i] + unzigzag(readVarint(buf));
+			}
+		}
+
+		return values;
+	}
+
+	private static int zigzag(int i)
+	{
+		return (i << 1) ^ (i >> 31);
+	}
+
+	private static int unzigzag(int i)
+	{
+		return (i >>> 1) ^ -(i & 1);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(ByteBuffer buf)
+	{
+		int value = 0;
+		for (int shift = 0; ; shift += 7)
+		{
+			int b = buf.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+	}
+}
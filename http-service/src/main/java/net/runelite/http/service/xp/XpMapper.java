@@ -38,6 +38,11 @@ public interface XpMapper
 
 	XpData xpEntityToXpData(XpEntity xpEntity);
 
+	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "player", ignore = true)
+	@Mapping(target = "overall_xp", ignore = true)
+	XpEntity xpDataToXpEntity(XpData xpData);
+
 	@Mapping(target = "time", ignore = true)
 
 	@Mapping(source = "attack.experience", target = "attack_xp")
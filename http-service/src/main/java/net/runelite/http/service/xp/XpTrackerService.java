@@ -26,12 +26,26 @@ package net.runelite.http.service.xp;
 
 import com.google.common.hash.BloomFilter;
 import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.nio.charset.Charset;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.hiscore.HiscoreEndpoint;
 import net.runelite.http.api.hiscore.HiscoreResult;
@@ -39,11 +53,14 @@ import net.runelite.http.api.xp.XpData;
 import net.runelite.http.service.hiscore.HiscoreService;
 import net.runelite.http.service.xp.beans.PlayerEntity;
 import net.runelite.http.service.xp.beans.XpEntity;
+import net.runelite.http.service.xp.beans.XpSnapshotEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
@@ -52,6 +69,12 @@ public class XpTrackerService
 {
 	private static final int QUEUE_LIMIT = 32768;
 	private static final int BLOOMFILTER_EXPECTED_INSERTIONS = 100_000;
+	// max age of the keyframe a snapshot is stored against
+	private static final Duration KEYFRAME_INTERVAL = Duration.ofDays(30);
+	// deltas larger than this are stored as a new keyframe instead
+	private static final int MAX_DELTA_LENGTH = 128;
+	// how many flushes failed snapshots are retried by before they are dropped
+	private static final int MAX_FLUSH_ATTEMPTS = 60;
 
 	@Autowired
 	@Qualifier("Runelite XP Tracker SQL2O")
@@ -60,8 +83,50 @@ public class XpTrackerService
 	@Autowired
 	private HiscoreService hiscoreService;
 
-	private final Queue<String> usernameUpdateQueue = new ArrayDeque<>();
-	private BloomFilter<String> usernameFilter = createFilter();
+	@Value("${xp.workers:4}")
+	private int workerCount;
+
+	@Value("${xp.rate:4}")
+	private double hiscoreRate;
+
+	private final BlockingQueue<String> usernameUpdateQueue = new LinkedBlockingQueue<>(QUEUE_LIMIT);
+	// usernames queued or being updated, to avoid queueing a username twice
+	private final Set<String> queuedUsernames = ConcurrentHashMap.newKeySet();
+	private volatile BloomFilter<String> usernameFilter = createFilter();
+	// snapshots waiting to be written
+	private final Queue<PendingSnapshot> pendingSnapshots = new ConcurrentLinkedQueue<>();
+	// snapshots which failed to be written, retried by the next flush
+	private List<PendingSnapshot> failedSnapshots;
+	private int failedAttempts;
+
+	private ExecutorService workers;
+	private RateLimiter hiscoreLimiter;
+
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicLong updated = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+
+	@PostConstruct
+	public void start()
+	{
+		hiscoreLimiter = RateLimiter.create(hiscoreRate);
+		workers = Executors.newFixedThreadPool(workerCount, new ThreadFactoryBuilder()
+			.setNameFormat("xp-tracker-%d")
+			.setDaemon(true)
+			.build());
+		for (int i = 0; i < workerCount; ++i)
+		{
+			workers.execute(this::work);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		workers.shutdownNow();
+		flushSnapshots();
+	}
 
 	public void update(String username) throws ExecutionException
 	{
@@ -69,13 +134,72 @@ public class XpTrackerService
 		update(username, hiscoreResult);
 	}
 
+	/**
+	 * Queue a username to have its xp updated, if it hasn't been updated
+	 * recently. The update frequency is checked by the workers, so this
+	 * does not touch the database.
+	 *
+	 * @param username
+	 */
 	public void tryUpdate(String username)
 	{
-		if (usernameFilter.mightContain(username))
+		BloomFilter<String> filter = usernameFilter;
+		if (filter.mightContain(username))
 		{
 			return;
 		}
 
+		if (!queuedUsernames.add(username))
+		{
+			return;
+		}
+
+		if (!usernameUpdateQueue.offer(username))
+		{
+			queuedUsernames.remove(username);
+			log.warn("Username update queue is full ({})", QUEUE_LIMIT);
+			return;
+		}
+
+		// only mark the username once it is queued, so that it is retried
+		// if the queue was full
+		filter.put(username);
+	}
+
+	private void work()
+	{
+		while (!Thread.currentThread().isInterrupted())
+		{
+			String username;
+			try
+			{
+				username = usernameUpdateQueue.take();
+			}
+			catch (InterruptedException ex)
+			{
+				return;
+			}
+
+			running.incrementAndGet();
+			try
+			{
+				refresh(username);
+			}
+			catch (Exception ex)
+			{
+				failed.incrementAndGet();
+				log.warn("unable to update xp for {}", username, ex);
+			}
+			finally
+			{
+				queuedUsernames.remove(username);
+				running.decrementAndGet();
+			}
+		}
+	}
+
+	private void refresh(String username) throws ExecutionException
+	{
 		try (Connection con = sql2o.open())
 		{
 			PlayerEntity playerEntity = findOrCreatePlayer(con, username);
@@ -85,36 +209,71 @@ public class XpTrackerService
 			if (timeSinceLastUpdate.toMillis() < frequency.toMillis())
 			{
 				log.debug("User {} updated too recently", username);
-				usernameFilter.put(username);
+				skipped.incrementAndGet();
 				return;
 			}
+		}
 
-			synchronized (usernameUpdateQueue)
-			{
-				if (usernameUpdateQueue.size() >= QUEUE_LIMIT)
-				{
-					log.warn("Username update queue is full ({})", QUEUE_LIMIT);
-					return;
-				}
+		hiscoreLimiter.acquire();
+		update(username);
+		updated.incrementAndGet();
+	}
 
-				usernameUpdateQueue.add(username);
-			}
-		}
+	/**
+	 * Get the number of usernames waiting to be updated
+	 *
+	 * @return
+	 */
+	public int getBacklog()
+	{
+		return usernameUpdateQueue.size();
+	}
 
-		usernameFilter.put(username);
+	public int getRunning()
+	{
+		return running.get();
+	}
+
+	public long getUpdated()
+	{
+		return updated.get();
+	}
+
+	public long getSkipped()
+	{
+		return skipped.get();
+	}
+
+	public long getFailed()
+	{
+		return failed.get();
+	}
+
+	@Scheduled(fixedDelay = 60_000)
+	public void logBacklog()
+	{
+		int backlog = getBacklog();
+		if (backlog > 0)
+		{
+			log.info("Xp tracker backlog: {} queued, {} running, {} updated, {} skipped, {} failed",
+				backlog, getRunning(), getUpdated(), getSkipped(), getFailed());
+		}
 	}
 
 	public void update(String username, HiscoreResult hiscoreResult)
 	{
+		XpData hiscoreData = XpMapper.INSTANCE.hiscoreResultToXpData(hiscoreResult);
+		int[] values = XpDelta.values(XpMapper.INSTANCE.xpDataToXpEntity(hiscoreData));
+
 		try (Connection con = sql2o.open())
 		{
 			PlayerEntity playerEntity = findOrCreatePlayer(con, username);
 
 			Instant now = Instant.now();
-			XpEntity currentXp = findXpAtTime(con, username, now);
+			XpSnapshotEntity snapshot = findSnapshot(con, username, now);
+			XpEntity currentXp = snapshot != null ? reconstruct(snapshot) : findXpAtTime(con, username, now);
 			if (currentXp != null)
 			{
-				XpData hiscoreData = XpMapper.INSTANCE.hiscoreResultToXpData(hiscoreResult);
 				XpData existingData = XpMapper.INSTANCE.xpEntityToXpData(currentXp);
 
 				if (hiscoreData.equals(existingData))
@@ -124,70 +283,165 @@ public class XpTrackerService
 				}
 			}
 
-			con.createQuery("insert into xp (player,attack_xp,defence_xp,strength_xp,hitpoints_xp,ranged_xp,prayer_xp,magic_xp,cooking_xp,woodcutting_xp,"
-				+ "fletching_xp,fishing_xp,firemaking_xp,crafting_xp,smithing_xp,mining_xp,herblore_xp,agility_xp,thieving_xp,slayer_xp,farming_xp,"
-				+ "runecraft_xp,hunter_xp,construction_xp,attack_rank,defence_rank,strength_rank,hitpoints_rank,ranged_rank,prayer_rank,magic_rank,"
-				+ "cooking_rank,woodcutting_rank,fletching_rank,fishing_rank,firemaking_rank,crafting_rank,smithing_rank,mining_rank,herblore_rank,"
-				+ "agility_rank,thieving_rank,slayer_rank,farming_rank,runecraft_rank,hunter_rank,construction_rank,overall_rank) values (:player,:attack_xp,:defence_xp,"
-				+ ":strength_xp,:hitpoints_xp,:ranged_xp,:prayer_xp,:magic_xp,:cooking_xp,:woodcutting_xp,:fletching_xp,:fishing_xp,:firemaking_xp,"
-				+ ":crafting_xp,:smithing_xp,:mining_xp,:herblore_xp,:agility_xp,:thieving_xp,:slayer_xp,:farming_xp,:runecraft_xp,:hunter_xp,"
-				+ ":construction_xp,:attack_rank,:defence_rank,:strength_rank,:hitpoints_rank,:ranged_rank,:prayer_rank,:magic_rank,:cooking_rank,"
-				+ ":woodcutting_rank,:fletching_rank,:fishing_rank,:firemaking_rank,:crafting_rank,:smithing_rank,:mining_rank,:herblore_rank,"
-				+ ":agility_rank,:thieving_rank,:slayer_rank,:farming_rank,:runecraft_rank,:hunter_rank,:construction_rank,:overall_rank)")
-				.addParameter("player", playerEntity.getId())
-				.addParameter("attack_xp", hiscoreResult.getAttack().getExperience())
-				.addParameter("defence_xp", hiscoreResult.getDefence().getExperience())
-				.addParameter("strength_xp", hiscoreResult.getStrength().getExperience())
-				.addParameter("hitpoints_xp", hiscoreResult.getHitpoints().getExperience())
-				.addParameter("ranged_xp", hiscoreResult.getRanged().getExperience())
-				.addParameter("prayer_xp", hiscoreResult.getPrayer().getExperience())
-				.addParameter("magic_xp", hiscoreResult.getMagic().getExperience())
-				.addParameter("cooking_xp", hiscoreResult.getCooking().getExperience())
-				.addParameter("woodcutting_xp", hiscoreResult.getWoodcutting().getExperience())
-				.addParameter("fletching_xp", hiscoreResult.getFletching().getExperience())
-				.addParameter("fishing_xp", hiscoreResult.getFishing().getExperience())
-				.addParameter("firemaking_xp", hiscoreResult.getFiremaking().getExperience())
-				.addParameter("crafting_xp", hiscoreResult.getCrafting().getExperience())
-				.addParameter("smithing_xp", hiscoreResult.getSmithing().getExperience())
-				.addParameter("mining_xp", hiscoreResult.getMining().getExperience())
-				.addParameter("herblore_xp", hiscoreResult.getHerblore().getExperience())
-				.addParameter("agility_xp", hiscoreResult.getAgility().getExperience())
-				.addParameter("thieving_xp", hiscoreResult.getThieving().getExperience())
-				.addParameter("slayer_xp", hiscoreResult.getSlayer().getExperience())
-				.addParameter("farming_xp", hiscoreResult.getFarming().getExperience())
-				.addParameter("runecraft_xp", hiscoreResult.getRunecraft().getExperience())
-				.addParameter("hunter_xp", hiscoreResult.getHunter().getExperience())
-				.addParameter("construction_xp", hiscoreResult.getConstruction().getExperience())
-				.addParameter("attack_rank", hiscoreResult.getAttack().getRank())
-				.addParameter("defence_rank", hiscoreResult.getDefence().getRank())
-				.addParameter("strength_rank", hiscoreResult.getStrength().getRank())
-				.addParameter("hitpoints_rank", hiscoreResult.getHitpoints().getRank())
-				.addParameter("ranged_rank", hiscoreResult.getRanged().getRank())
-				.addParameter("prayer_rank", hiscoreResult.getPrayer().getRank())
-				.addParameter("magic_rank", hiscoreResult.getMagic().getRank())
-				.addParameter("cooking_rank", hiscoreResult.getCooking().getRank())
-				.addParameter("woodcutting_rank", hiscoreResult.getWoodcutting().getRank())
-				.addParameter("fletching_rank", hiscoreResult.getFletching().getRank())
-				.addParameter("fishing_rank", hiscoreResult.getFishing().getRank())
-				.addParameter("firemaking_rank", hiscoreResult.getFiremaking().getRank())
-				.addParameter("crafting_rank", hiscoreResult.getCrafting().getRank())
-				.addParameter("smithing_rank", hiscoreResult.getSmithing().getRank())
-				.addParameter("mining_rank", hiscoreResult.getMining().getRank())
-				.addParameter("herblore_rank", hiscoreResult.getHerblore().getRank())
-				.addParameter("agility_rank", hiscoreResult.getAgility().getRank())
-				.addParameter("thieving_rank", hiscoreResult.getThieving().getRank())
-				.addParameter("slayer_rank", hiscoreResult.getSlayer().getRank())
-				.addParameter("farming_rank", hiscoreResult.getFarming().getRank())
-				.addParameter("runecraft_rank", hiscoreResult.getRunecraft().getRank())
-				.addParameter("hunter_rank", hiscoreResult.getHunter().getRank())
-				.addParameter("construction_rank", hiscoreResult.getConstruction().getRank())
-				.addParameter("overall_rank", hiscoreResult.getOverall().getRank())
-				.executeUpdate();
-
-			con.createQuery("update player set rank = :rank, last_updated = CURRENT_TIMESTAMP where id = :id")
-				.addParameter("id", playerEntity.getId())
-				.addParameter("rank", hiscoreResult.getOverall().getRank())
-				.executeUpdate();
+			// store the snapshot as a delta against the current keyframe, if it is recent and the delta is small
+			byte[] delta = null;
+			int keyframe = 0;
+			if (snapshot != null && Duration.between(snapshot.getTime(), now).compareTo(KEYFRAME_INTERVAL) < 0)
+			{
+				delta = XpDelta.encode(XpDelta.values(snapshot), values);
+				if (delta.length <= MAX_DELTA_LENGTH)
+				{
+					keyframe = snapshot.getId();
+				}
+				else
+				{
+					delta = null;
+				}
+			}
+
+			if (delta == null)
+			{
+				keyframe = insertKeyframe(con, playerEntity.getId(), now, hiscoreResult);
+			}
+
+			pendingSnapshots.add(new PendingSnapshot(playerEntity.getId(), now, keyframe, delta, hiscoreResult.getOverall().getRank()));
+		}
+	}
+
+	private int insertKeyframe(Connection con, int player, Instant time, HiscoreResult hiscoreResult)
+	{
+		return con.createQuery("insert into xp (time,player,attack_xp,defence_xp,strength_xp,hitpoints_xp,ranged_xp,prayer_xp,magic_xp,cooking_xp,woodcutting_xp,"
+			+ "fletching_xp,fishing_xp,firemaking_xp,crafting_xp,smithing_xp,mining_xp,herblore_xp,agility_xp,thieving_xp,slayer_xp,farming_xp,"
+			+ "runecraft_xp,hunter_xp,construction_xp,attack_rank,defence_rank,strength_rank,hitpoints_rank,ranged_rank,prayer_rank,magic_rank,"
+			+ "cooking_rank,woodcutting_rank,fletching_rank,fishing_rank,firemaking_rank,crafting_rank,smithing_rank,mining_rank,herblore_rank,"
+			+ "agility_rank,thieving_rank,slayer_rank,farming_rank,runecraft_rank,hunter_rank,construction_rank,overall_rank) values (:time,:player,:attack_xp,:defence_xp,"
+			+ ":strength_xp,:hitpoints_xp,:ranged_xp,:prayer_xp,:magic_xp,:cooking_xp,:woodcutting_xp,:fletching_xp,:fishing_xp,:firemaking_xp,"
+			+ ":crafting_xp,:smithing_xp,:mining_xp,:herblore_xp,:agility_xp,:thieving_xp,:slayer_xp,:farming_xp,:runecraft_xp,:hunter_xp,"
+			+ ":construction_xp,:attack_rank,:defence_rank,:strength_rank,:hitpoints_rank,:ranged_rank,:prayer_rank,:magic_rank,:cooking_rank,"
+			+ ":woodcutting_rank,:fletching_rank,:fishing_rank,:firemaking_rank,:crafting_rank,:smithing_rank,:mining_rank,:herblore_rank,"
+			+ ":agility_rank,:thieving_rank,:slayer_rank,:farming_rank,:runecraft_rank,:hunter_rank,:construction_rank,:overall_rank)")
+			.addParameter("time", time)
+			.addParameter("player", player)
+			.addParameter("attack_xp", hiscoreResult.getAttack().getExperience())
+			.addParameter("defence_xp", hiscoreResult.getDefence().getExperience())
+			.addParameter("strength_xp", hiscoreResult.getStrength().getExperience())
+			.addParameter("hitpoints_xp", hiscoreResult.getHitpoints().getExperience())
+			.addParameter("ranged_xp", hiscoreResult.getRanged().getExperience())
+			.addParameter("prayer_xp", hiscoreResult.getPrayer().getExperience())
+			.addParameter("magic_xp", hiscoreResult.getMagic().getExperience())
+			.addParameter("cooking_xp", hiscoreResult.getCooking().getExperience())
+			.addParameter("woodcutting_xp", hiscoreResult.getWoodcutting().getExperience())
+			.addParameter("fletching_xp", hiscoreResult.getFletching().getExperience())
+			.addParameter("fishing_xp", hiscoreResult.getFishing().getExperience())
+			.addParameter("firemaking_xp", hiscoreResult.getFiremaking().getExperience())
+			.addParameter("crafting_xp", hiscoreResult.getCrafting().getExperience())
+			.addParameter("smithing_xp", hiscoreResult.getSmithing().getExperience())
+			.addParameter("mining_xp", hiscoreResult.getMining().getExperience())
+			.addParameter("herblore_xp", hiscoreResult.getHerblore().getExperience())
+			.addParameter("agility_xp", hiscoreResult.getAgility().getExperience())
+			.addParameter("thieving_xp", hiscoreResult.getThieving().getExperience())
+			.addParameter("slayer_xp", hiscoreResult.getSlayer().getExperience())
+			.addParameter("farming_xp", hiscoreResult.getFarming().getExperience())
+			.addParameter("runecraft_xp", hiscoreResult.getRunecraft().getExperience())
+			.addParameter("hunter_xp", hiscoreResult.getHunter().getExperience())
+			.addParameter("construction_xp", hiscoreResult.getConstruction().getExperience())
+			.addParameter("attack_rank", hiscoreResult.getAttack().getRank())
+			.addParameter("defence_rank", hiscoreResult.getDefence().getRank())
+			.addParameter("strength_rank", hiscoreResult.getStrength().getRank())
+			.addParameter("hitpoints_rank", hiscoreResult.getHitpoints().getRank())
+			.addParameter("ranged_rank", hiscoreResult.getRanged().getRank())
+			.addParameter("prayer_rank", hiscoreResult.getPrayer().getRank())
+			.addParameter("magic_rank", hiscoreResult.getMagic().getRank())
+			.addParameter("cooking_rank", hiscoreResult.getCooking().getRank())
+			.addParameter("woodcutting_rank", hiscoreResult.getWoodcutting().getRank())
+			.addParameter("fletching_rank", hiscoreResult.getFletching().getRank())
+			.addParameter("fishing_rank", hiscoreResult.getFishing().getRank())
+			.addParameter("firemaking_rank", hiscoreResult.getFiremaking().getRank())
+			.addParameter("crafting_rank", hiscoreResult.getCrafting().getRank())
+			.addParameter("smithing_rank", hiscoreResult.getSmithing().getRank())
+			.addParameter("mining_rank", hiscoreResult.getMining().getRank())
+			.addParameter("herblore_rank", hiscoreResult.getHerblore().getRank())
+			.addParameter("agility_rank", hiscoreResult.getAgility().getRank())
+			.addParameter("thieving_rank", hiscoreResult.getThieving().getRank())
+			.addParameter("slayer_rank", hiscoreResult.getSlayer().getRank())
+			.addParameter("farming_rank", hiscoreResult.getFarming().getRank())
+			.addParameter("runecraft_rank", hiscoreResult.getRunecraft().getRank())
+			.addParameter("hunter_rank", hiscoreResult.getHunter().getRank())
+			.addParameter("construction_rank", hiscoreResult.getConstruction().getRank())
+			.addParameter("overall_rank", hiscoreResult.getOverall().getRank())
+			.executeUpdate()
+			.getKey(int.class);
+	}
+
+	/**
+	 * Write queued snapshots and the last update time of their players. If
+	 * the snapshots can't be written, they are kept and retried first by the
+	 * following flushes, since their keyframes are already stored.
+	 */
+	@Scheduled(fixedDelay = 5000)
+	public synchronized void flushSnapshots()
+	{
+		if (failedSnapshots != null)
+		{
+			if (!writeSnapshots(failedSnapshots))
+			{
+				if (++failedAttempts < MAX_FLUSH_ATTEMPTS)
+				{
+					return;
+				}
+
+				log.error("dropping {} xp snapshots after {} attempts", failedSnapshots.size(), failedAttempts);
+			}
+
+			failedSnapshots = null;
+			failedAttempts = 0;
+		}
+
+		List<PendingSnapshot> snapshots = new ArrayList<>();
+		for (PendingSnapshot snapshot; (snapshot = pendingSnapshots.poll()) != null; )
+		{
+			snapshots.add(snapshot);
+		}
+
+		if (!snapshots.isEmpty() && !writeSnapshots(snapshots))
+		{
+			failedSnapshots = snapshots;
+			failedAttempts = 1;
+		}
+	}
+
+	private boolean writeSnapshots(List<PendingSnapshot> snapshots)
+	{
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query insertSnapshot = con.createQuery("insert ignore into xp_snapshot (player, time, keyframe, delta) values (:player, :time, :keyframe, :delta)");
+			Query updatePlayer = con.createQuery("update player set rank = :rank, last_updated = :time where id = :id");
+
+			for (PendingSnapshot snapshot : snapshots)
+			{
+				insertSnapshot
+					.addParameter("player", snapshot.getPlayer())
+					.addParameter("time", snapshot.getTime())
+					.addParameter("keyframe", snapshot.getKeyframe())
+					.addParameter("delta", snapshot.getDelta())
+					.addToBatch();
+
+				updatePlayer
+					.addParameter("id", snapshot.getPlayer())
+					.addParameter("rank", snapshot.getRank())
+					.addParameter("time", snapshot.getTime())
+					.addToBatch();
+			}
+
+			insertSnapshot.executeBatch();
+			updatePlayer.executeBatch();
+			con.commit(false);
+			return true;
+		}
+		catch (RuntimeException ex)
+		{
+			log.warn("unable to store {} xp snapshots", snapshots.size(), ex);
+			return false;
 		}
 	}
 
@@ -217,38 +471,58 @@ public class XpTrackerService
 		return playerEntity;
 	}
 
-	private XpEntity findXpAtTime(Connection con, String username, Instant time)
+	/**
+	 * Find the latest snapshot at or before the given time, along with its keyframe
+	 */
+	private XpSnapshotEntity findSnapshot(Connection con, String username, Instant time)
 	{
-		return con.createQuery("select * from xp join player on player.id=xp.player where player.name = :username and time <= :time order by time desc limit 1")
+		return con.createQuery("select xp.*, s.time as snapshot_time, s.delta from xp_snapshot s "
+			+ "join player on player.id=s.player join xp on xp.id=s.keyframe "
+			+ "where player.name = :username and s.time <= :time order by s.time desc limit 1")
 			.throwOnMappingFailure(false)
 			.addParameter("username", username)
 			.addParameter("time", time)
-			.executeAndFetchFirst(XpEntity.class);
+			.executeAndFetchFirst(XpSnapshotEntity.class);
 	}
 
-	public XpEntity findXpAtTime(String username, Instant time)
+	private static XpEntity reconstruct(XpSnapshotEntity snapshot)
 	{
-		try (Connection con = sql2o.open())
+		XpEntity xp = new XpEntity();
+		xp.setId(snapshot.getId());
+		xp.setPlayer(snapshot.getPlayer());
+		xp.setTime(snapshot.getSnapshot_time());
+
+		int[] values = XpDelta.values(snapshot);
+		if (snapshot.getDelta() != null)
 		{
-			return findXpAtTime(con, username, time);
+			values = XpDelta.decode(values, snapshot.getDelta());
 		}
+		XpDelta.apply(xp, values);
+		return xp;
 	}
 
-	@Scheduled(fixedDelay = 1000)
-	public void update() throws ExecutionException
+	// xp recorded before snapshots were stored as deltas
+	private XpEntity findXpAtTime(Connection con, String username, Instant time)
 	{
-		String next;
-		synchronized (usernameUpdateQueue)
-		{
-			next = usernameUpdateQueue.poll();
-		}
+		return con.createQuery("select * from xp join player on player.id=xp.player where player.name = :username and time <= :time order by time desc limit 1")
+			.throwOnMappingFailure(false)
+			.addParameter("username", username)
+			.addParameter("time", time)
+			.executeAndFetchFirst(XpEntity.class);
+	}
 
-		if (next == null)
+	public XpEntity findXpAtTime(String username, Instant time)
+	{
+		try (Connection con = sql2o.open())
 		{
-			return;
-		}
+			XpSnapshotEntity snapshot = findSnapshot(con, username, time);
+			if (snapshot != null)
+			{
+				return reconstruct(snapshot);
+			}
 
-		update(next);
+			return findXpAtTime(con, username, time);
+		}
 	}
 
 	@Scheduled(fixedDelay = 6 * 60 * 60 * 1000) // 6 hours
@@ -264,12 +538,9 @@ public class XpTrackerService
 			BLOOMFILTER_EXPECTED_INSERTIONS
 		);
 
-		synchronized (usernameUpdateQueue)
+		for (String toUpdate : queuedUsernames)
 		{
-			for (String toUpdate : usernameUpdateQueue)
-			{
-				filter.put(toUpdate);
-			}
+			filter.put(toUpdate);
 		}
 
 		return filter;
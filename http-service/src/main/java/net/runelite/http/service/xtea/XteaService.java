@@ -24,13 +24,28 @@
  */
 package net.runelite.http.service.xtea;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.util.Djb2;
+import net.runelite.http.api.RuneLiteAPI;
 import net.runelite.http.api.xtea.XteaKey;
 import net.runelite.http.api.xtea.XteaRequest;
 import net.runelite.http.service.cache.CacheService;
@@ -45,6 +60,7 @@ import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
+@Slf4j
 public class XteaService
 {
 	private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS `xtea` (\n"
@@ -63,10 +79,18 @@ public class XteaService
 	private final Sql2o sql2o;
 	private final CacheService cacheService;
 
-	private final Cache<Integer, XteaCache> keyCache = CacheBuilder.newBuilder()
-		.maximumSize(1024)
+	// latest keys of each region
+	private final Map<Integer, XteaEntry> latestKeys = new ConcurrentHashMap<>();
+	// serialized latest keys of all regions
+	private volatile byte[] serializedKeys;
+
+	// results of checking keys against the map archives of a cache
+	private final Cache<XteaValidationKey, Boolean> validationCache = CacheBuilder.newBuilder()
+		.maximumSize(16384)
 		.build();
 
+	private final Supplier<CacheEntry> mostRecentCache;
+
 	@Autowired
 	public XteaService(
 		@Qualifier("Runelite SQL2O") Sql2o sql2o,
@@ -75,131 +99,194 @@ public class XteaService
 	{
 		this.sql2o = sql2o;
 		this.cacheService = cacheService;
+		this.mostRecentCache = Suppliers.memoizeWithExpiration(cacheService::findMostRecent, 1, TimeUnit.MINUTES);
 
 		try (Connection con = sql2o.beginTransaction())
 		{
 			con.createQuery(CREATE_SQL)
 				.executeUpdate();
 		}
+
+		loadKeys();
+		serializedKeys = serializeKeys();
+	}
+
+	private void loadKeys()
+	{
+		List<XteaEntry> entries;
+		try (Connection con = sql2o.open())
+		{
+			entries = con.createQuery(
+				"select t1.region, t2.time, t2.rev, t2.key1, t2.key2, t2.key3, t2.key4 from " +
+					"(select region,max(id) as id from xtea group by region) t1 " +
+					"join xtea t2 on t1.id = t2.id")
+				.executeAndFetch(XteaEntry.class);
+		}
+
+		for (XteaEntry entry : entries)
+		{
+			latestKeys.put(entry.getRegion(), entry);
+		}
+
+		log.debug("Loaded keys for {} regions", entries.size());
 	}
 
-	private XteaEntry findLatestXtea(Connection con, int region)
+	private static boolean matches(XteaEntry xteaEntry, int[] keys)
 	{
-		return con.createQuery("select region, time, key1, key2, key3, key4 from xtea "
-			+ "where region = :region "
-			+ "order by time desc "
-			+ "limit 1")
-			.addParameter("region", region)
-			.executeAndFetchFirst(XteaEntry.class);
+		return xteaEntry != null
+			&& xteaEntry.getKey1() == keys[0]
+			&& xteaEntry.getKey2() == keys[1]
+			&& xteaEntry.getKey3() == keys[2]
+			&& xteaEntry.getKey4() == keys[3];
 	}
 
 	public void submit(XteaRequest xteaRequest)
 	{
-		boolean cached = true;
+		CacheEntry cache = null;
+		List<XteaEntry> newEntries = null;
+
 		for (XteaKey key : xteaRequest.getKeys())
 		{
 			int region = key.getRegion();
 			int[] keys = key.getKeys();
 
-			XteaCache xteaCache = keyCache.getIfPresent(region);
-			if (xteaCache == null
-				|| xteaCache.getKey1() != keys[0]
-				|| xteaCache.getKey2() != keys[1]
-				|| xteaCache.getKey3() != keys[2]
-				|| xteaCache.getKey4() != keys[3])
+			if (keys.length != 4)
 			{
-				cached = false;
-				keyCache.put(region, new XteaCache(region, keys[0], keys[1], keys[2], keys[3]));
+				throw new IllegalArgumentException("Key length must be 4");
 			}
-		}
 
-		if (cached)
-		{
-			return;
-		}
-
-		try (Connection con = sql2o.beginTransaction())
-		{
-			CacheEntry cache = cacheService.findMostRecent();
+			// already have these?
+			if (matches(latestKeys.get(region), keys))
+			{
+				continue;
+			}
 
 			if (cache == null)
 			{
-				throw new InternalServerErrorException("No most recent cache");
-			}
+				cache = mostRecentCache.get();
 
-			Query query = null;
+				if (cache == null)
+				{
+					throw new InternalServerErrorException("No most recent cache");
+				}
+			}
 
-			for (XteaKey key : xteaRequest.getKeys())
+			if (!isValid(cache, region, keys))
 			{
-				int region = key.getRegion();
-				int[] keys = key.getKeys();
+				continue;
+			}
 
-				XteaEntry xteaEntry = findLatestXtea(con, region);
+			XteaEntry xteaEntry = new XteaEntry();
+			xteaEntry.setRegion(region);
+			xteaEntry.setTime(Instant.now());
+			xteaEntry.setRev(xteaRequest.getRevision());
+			xteaEntry.setKey1(keys[0]);
+			xteaEntry.setKey2(keys[1]);
+			xteaEntry.setKey3(keys[2]);
+			xteaEntry.setKey4(keys[3]);
 
-				if (keys.length != 4)
-				{
-					throw new IllegalArgumentException("Key length must be 4");
-				}
+			if (newEntries == null)
+			{
+				newEntries = new ArrayList<>();
+			}
+			newEntries.add(xteaEntry);
+		}
 
-				// already have these?
-				if (xteaEntry != null
-					&& xteaEntry.getKey1() == keys[0]
-					&& xteaEntry.getKey2() == keys[1]
-					&& xteaEntry.getKey3() == keys[2]
-					&& xteaEntry.getKey4() == keys[3])
-				{
-					continue;
-				}
+		if (newEntries != null)
+		{
+			store(newEntries);
+		}
+	}
 
-				if (!checkKeys(cache, region, keys))
-				{
-					continue;
-				}
+	private synchronized void store(List<XteaEntry> entries)
+	{
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("insert into xtea (region, rev, key1, key2, key3, key4) "
+				+ "values (:region, :rev, :key1, :key2, :key3, :key4)");
+			List<XteaEntry> inserted = new ArrayList<>(entries.size());
 
-				if (query == null)
+			for (XteaEntry entry : entries)
+			{
+				// another submission may have stored the same keys meanwhile
+				int[] keys = {entry.getKey1(), entry.getKey2(), entry.getKey3(), entry.getKey4()};
+				if (matches(latestKeys.get(entry.getRegion()), keys))
 				{
-					query = con.createQuery("insert into xtea (region, rev, key1, key2, key3, key4) "
-						+ "values (:region, :rev, :key1, :key2, :key3, :key4)");
+					continue;
 				}
 
-				query.addParameter("region", region)
-					.addParameter("rev", xteaRequest.getRevision())
-					.addParameter("key1", keys[0])
-					.addParameter("key2", keys[1])
-					.addParameter("key3", keys[2])
-					.addParameter("key4", keys[3])
+				query.addParameter("region", entry.getRegion())
+					.addParameter("rev", entry.getRev())
+					.addParameter("key1", entry.getKey1())
+					.addParameter("key2", entry.getKey2())
+					.addParameter("key3", entry.getKey3())
+					.addParameter("key4", entry.getKey4())
 					.addToBatch();
+				inserted.add(entry);
 			}
 
-			if (query != null)
+			if (inserted.isEmpty())
+			{
+				return;
+			}
+
+			query.executeBatch();
+			con.commit(false);
+
+			for (XteaEntry entry : inserted)
 			{
-				query.executeBatch();
-				con.commit(false);
+				latestKeys.put(entry.getRegion(), entry);
 			}
 		}
+
+		serializedKeys = serializeKeys();
 	}
 
-	public List<XteaEntry> get()
+	private boolean isValid(CacheEntry cache, int region, int[] keys)
 	{
-		try (Connection con = sql2o.open())
+		XteaValidationKey validationKey = new XteaValidationKey(cache.getId(), region, keys[0], keys[1], keys[2], keys[3]);
+		try
 		{
-			return con.createQuery(
-				"select t1.region, t2.time, t2.rev, t2.key1, t2.key2, t2.key3, t2.key4 from " +
-					"(select region,max(id) as id from xtea group by region) t1 " +
-					"join xtea t2 on t1.id = t2.id")
-				.executeAndFetch(XteaEntry.class);
+			return validationCache.get(validationKey, () -> checkKeys(cache, region, keys));
+		}
+		catch (ExecutionException | UncheckedExecutionException | ExecutionError ex)
+		{
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new RuntimeException(ex.getCause());
 		}
 	}
 
-	public XteaEntry getRegion(int region)
+	public List<XteaEntry> get()
 	{
-		try (Connection con = sql2o.open())
+		List<XteaEntry> entries = new ArrayList<>(latestKeys.values());
+		entries.sort(Comparator.comparingInt(XteaEntry::getRegion));
+		return entries;
+	}
+
+	/**
+	 * Get the latest keys of all regions as a json list of {@link XteaKey}
+	 *
+	 * @return
+	 */
+	public byte[] getSerialized()
+	{
+		return serializedKeys;
+	}
+
+	private byte[] serializeKeys()
+	{
+		List<XteaKey> keys = new ArrayList<>(latestKeys.size());
+		for (XteaEntry entry : get())
 		{
-			return con.createQuery("select region, time, rev, key1, key2, key3, key4 from xtea "
-				+ "where region = :region order by time desc limit 1")
-				.addParameter("region", region)
-				.executeAndFetchFirst(XteaEntry.class);
+			keys.add(XteaController.entryToKey(entry));
 		}
+
+		return RuneLiteAPI.GSON.toJson(keys).getBytes(StandardCharsets.UTF_8);
+	}
+
+	public XteaEntry getRegion(int region)
+	{
+		return latestKeys.get(region);
 	}
 
 	private boolean checkKeys(CacheEntry cache, int regionId, int[] keys)
@@ -232,8 +319,11 @@ public class XteaService
 			Container.decompress(data, keys);
 			return true;
 		}
-		catch (IOException ex)
+		catch (IOException | RuntimeException ex)
 		{
+			// the keys are client supplied, so any failure to decompress
+			// with them means they are wrong
+			log.debug("region {} does not decompress with the submitted keys", regionId, ex);
 			return false;
 		}
 	}
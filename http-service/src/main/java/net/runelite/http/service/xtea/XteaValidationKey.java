@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -24,13 +24,15 @@
  */
 package net.runelite.http.service.xtea;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
-@Data
-@AllArgsConstructor
-class XteaCache
+/**
+ * Keys for a region checked against a cache
+ */
+@Value
+class XteaValidationKey
 {
+	private int cache;
 	private int region;
 	private int key1;
 	private int key2;
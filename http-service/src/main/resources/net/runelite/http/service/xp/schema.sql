@@ -122,6 +122,25 @@ CREATE TABLE `xp` (
   CONSTRAINT `fk_player` FOREIGN KEY (`player`) REFERENCES `player` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
 /*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `xp_snapshot`
+--
+
+DROP TABLE IF EXISTS `xp_snapshot`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `xp_snapshot` (
+  `player` int(11) NOT NULL,
+  `time` timestamp NOT NULL DEFAULT current_timestamp(),
+  `keyframe` int(11) NOT NULL,
+  `delta` varbinary(128) DEFAULT NULL,
+  PRIMARY KEY (`player`,`time`),
+  KEY `idx_keyframe` (`keyframe`),
+  CONSTRAINT `fk_snapshot_player` FOREIGN KEY (`player`) REFERENCES `player` (`id`),
+  CONSTRAINT `fk_snapshot_keyframe` FOREIGN KEY (`keyframe`) REFERENCES `xp` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+/*!40101 SET character_set_client = @saved_cs_client */;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
 
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.chat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import net.runelite.http.service.util.redis.RedisPool;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import redis.clients.jedis.Jedis;
+
+public class ChatServiceTest
+{
+	// in-process stand in for redis
+	private final Map<String, String> redis = new HashMap<>();
+
+	private Jedis jedis;
+	private ChatService chatService;
+
+	@Before
+	public void before()
+	{
+		jedis = mock(Jedis.class);
+		when(jedis.get(anyString())).then(a -> redis.get(a.getArgumentAt(0, String.class)));
+		when(jedis.mget(Matchers.<String>anyVararg())).then(a -> Arrays.stream(a.getArguments())
+			.map(key -> redis.get((String) key))
+			.collect(Collectors.toList()));
+		when(jedis.setex(anyString(), anyInt(), anyString())).then(a -> redis.put(a.getArgumentAt(0, String.class), a.getArgumentAt(2, String.class)));
+
+		RedisPool redisPool = mock(RedisPool.class);
+		when(redisPool.getResource()).thenReturn(jedis);
+
+		chatService = new ChatService(redisPool);
+	}
+
+	@Test
+	public void testSetThenGet()
+	{
+		chatService.setKc("zezima", "Zulrah", 42);
+		assertEquals(42, (int) chatService.getKc("zezima", "Zulrah"));
+
+		verify(jedis).setex("kc.zezima.Zulrah", 120, "42");
+		verify(jedis, never()).get(anyString());
+	}
+
+	@Test
+	public void testMissingIsCached()
+	{
+		assertNull(chatService.getQp("zezima"));
+		assertNull(chatService.getQp("zezima"));
+
+		verify(jedis, times(1)).get("qp.zezima");
+	}
+
+	@Test
+	public void testBatch()
+	{
+		redis.put("kc.zezima.Vorkath", "10");
+		redis.put("kc.lynx titan.Vorkath", "20");
+		chatService.setKc("zezima", "Zulrah", 42);
+
+		Integer[] kcs = chatService.getKc(Arrays.asList(
+			new KillCountKey("zezima", "Zulrah"),
+			new KillCountKey("zezima", "Vorkath"),
+			new KillCountKey("lynx titan", "Vorkath"),
+			new KillCountKey("lynx titan", "Zulrah")
+		));
+		assertArrayEquals(new Integer[]{42, 10, 20, null}, kcs);
+
+		// only the keys not in the near cache are fetched
+		verify(jedis).mget("kc.zezima.Vorkath", "kc.lynx titan.Vorkath", "kc.lynx titan.Zulrah");
+
+		assertEquals(20, (int) chatService.getKc("lynx titan", "Vorkath"));
+		verify(jedis, never()).get(anyString());
+	}
+}
@@ -25,27 +25,38 @@
 package net.runelite.http.service.config;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import net.runelite.http.api.config.ConfigEntry;
+import net.runelite.http.api.config.Configuration;
 import net.runelite.http.service.account.AuthFilter;
 import net.runelite.http.service.account.beans.SessionEntry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -79,4 +90,44 @@ public class ConfigControllerTest
 
 		verify(configService).setKey(anyInt(), eq("key"), eq("value"));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testGet() throws Exception
+	{
+		when(configService.getVersioned(anyInt()))
+			.thenReturn(new VersionedConfiguration(3L, new Configuration(Collections.emptyList())));
+		when(configService.getVersion(anyInt())).thenReturn(3L);
+
+		mockMvc.perform(get("/config"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+
+		// the config and its version come from a single read
+		verify(configService, never()).getVersion(anyInt());
+
+		mockMvc.perform(get("/config")
+			.header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+			.andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void testPatch() throws Exception
+	{
+		mockMvc.perform(patch("/config")
+			.content("{\"config\":[{\"key\":\"group.key\",\"value\":\"value\"},{\"key\":\"group.other\"}]}")
+			.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk());
+
+		verify(configService).setKeys(anyInt(), argThat(new ArgumentMatcher<List<ConfigEntry>>()
+		{
+			@Override
+			public boolean matches(Object argument)
+			{
+				List<ConfigEntry> entries = (List<ConfigEntry>) argument;
+				return entries.size() == 2
+					&& "value".equals(entries.get(0).getValue())
+					&& entries.get(1).getValue() == null;
+			}
+		}));
+	}
+}
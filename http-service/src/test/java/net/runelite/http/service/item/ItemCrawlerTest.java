@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ItemCrawlerTest
+{
+	private final MockWebServer server = new MockWebServer();
+	private final OkHttpClient client = new OkHttpClient();
+
+	@Before
+	public void before() throws IOException
+	{
+		for (int i = 0; i < 8; ++i)
+		{
+			server.enqueue(new MockResponse().setBody("ok").setBodyDelay(50, TimeUnit.MILLISECONDS));
+		}
+
+		server.start();
+	}
+
+	@After
+	public void after() throws IOException
+	{
+		server.shutdown();
+	}
+
+	@Test
+	public void testCrawl() throws Exception
+	{
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maxConcurrent = new AtomicInteger();
+
+		ItemCrawler[] crawler = new ItemCrawler[1];
+		crawler[0] = new ItemCrawler(2, 4, 100, lookup ->
+		{
+			maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+			try
+			{
+				HttpUrl url = server.url("/item/" + lookup.getItemId());
+				crawler[0].acquire(url);
+
+				try (Response response = client.newCall(new Request.Builder().url(url).build()).execute())
+				{
+					assertTrue(response.isSuccessful());
+				}
+			}
+			finally
+			{
+				concurrent.decrementAndGet();
+			}
+		});
+
+		try
+		{
+			assertTrue(crawler[0].queue(new PendingLookup(1, PendingLookup.Type.PRICE)));
+			assertTrue(crawler[0].queue(new PendingLookup(1, PendingLookup.Type.PRICE))); // coalesced
+			assertTrue(crawler[0].queue(new PendingLookup(2, PendingLookup.Type.PRICE)));
+			assertTrue(crawler[0].queue(new PendingLookup(3, PendingLookup.Type.PRICE)));
+			assertTrue(crawler[0].queue(new PendingLookup(4, PendingLookup.Type.PRICE)));
+			// too many pending
+			assertEquals(false, crawler[0].queue(new PendingLookup(5, PendingLookup.Type.PRICE)));
+
+			for (int i = 0; i < 500 && crawler[0].getCompleted() + crawler[0].getFailed() < 4; ++i)
+			{
+				Thread.sleep(10);
+			}
+
+			assertEquals(4, crawler[0].getCompleted());
+			assertEquals(0, crawler[0].getFailed());
+			assertEquals(0, crawler[0].getQueueDepth());
+			assertEquals(4, server.getRequestCount());
+			assertTrue(maxConcurrent.get() <= 2);
+		}
+		finally
+		{
+			crawler[0].shutdown();
+		}
+	}
+}
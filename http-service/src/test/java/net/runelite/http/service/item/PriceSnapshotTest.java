@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import net.runelite.http.api.item.ItemPrice;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class PriceSnapshotTest
+{
+	private static final Instant TIME = Instant.ofEpochSecond(1_500_000_000L);
+
+	@Test
+	public void testMerge()
+	{
+		ItemPrice whip = price(4151, 1_000_000, TIME);
+		ItemPrice coins = price(995, 1, TIME);
+		PriceSnapshot snapshot = new PriceSnapshot(new ItemPrice[]{whip, coins});
+
+		// a newer price replaces the current one
+		ItemPrice newerWhip = price(4151, 1_100_000, TIME.plusSeconds(60));
+		snapshot = snapshot.merge(Collections.singletonList(newerWhip));
+		assertSame(newerWhip, snapshot.get(4151));
+		assertSame(coins, snapshot.get(995));
+
+		// an older price is ignored
+		snapshot = snapshot.merge(Collections.singletonList(price(4151, 900_000, TIME)));
+		assertSame(newerWhip, snapshot.get(4151));
+
+		// a new item beyond the current ids grows the snapshot
+		ItemPrice bond = price(13190, 5_000_000, TIME);
+		snapshot = snapshot.merge(Arrays.asList(bond, price(995, 2, TIME.plusSeconds(60))));
+		assertSame(bond, snapshot.get(13190));
+		assertSame(newerWhip, snapshot.get(4151));
+		assertEquals(2, snapshot.get(995).getPrice());
+		assertNull(snapshot.get(13191));
+		assertNull(snapshot.get(-1));
+	}
+
+	private static ItemPrice price(int id, int price, Instant time)
+	{
+		ItemPrice itemPrice = new ItemPrice();
+		itemPrice.setId(id);
+		itemPrice.setName("item " + id);
+		itemPrice.setPrice(price);
+		itemPrice.setTime(time);
+		return itemPrice;
+	}
+}
@@ -83,10 +83,27 @@ public class LootTrackerControllerTest
 		lootRecord.setTime(Instant.now());
 		lootRecord.setDrops(Collections.singletonList(new GameItem(4151, 1)));
 
+		when(lootTrackerService.store(eq(lootRecord), anyInt())).thenReturn(true);
+
 		String data = RuneLiteAPI.GSON.toJson(lootRecord);
 		mockMvc.perform(post("/loottracker").content(data).contentType(MediaType.APPLICATION_JSON))
 			.andExpect(status().isOk());
 
 		verify(lootTrackerService).store(eq(lootRecord), anyInt());
 	}
+
+	@Test
+	public void storeLootRecordQueueFull() throws Exception
+	{
+		LootRecord lootRecord = new LootRecord();
+		lootRecord.setType(LootRecordType.NPC);
+		lootRecord.setTime(Instant.now());
+		lootRecord.setDrops(Collections.singletonList(new GameItem(4151, 1)));
+
+		when(lootTrackerService.store(eq(lootRecord), anyInt())).thenReturn(false);
+
+		String data = RuneLiteAPI.GSON.toJson(lootRecord);
+		mockMvc.perform(post("/loottracker").content(data).contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isServiceUnavailable());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.xp;
+
+import net.runelite.http.service.xp.beans.XpEntity;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class XpDeltaTest
+{
+	@Test
+	public void testRoundTrip()
+	{
+		XpEntity keyframe = new XpEntity();
+		keyframe.setAgility_xp(9001);
+		keyframe.setAgility_rank(42);
+		keyframe.setOverall_rank(1000);
+
+		XpEntity current = new XpEntity();
+		current.setAgility_xp(12_000_000);
+		current.setAgility_rank(40);
+		current.setOverall_rank(-1);
+		current.setConstruction_xp(200_000_000);
+
+		int[] keyframeValues = XpDelta.values(keyframe);
+		int[] currentValues = XpDelta.values(current);
+
+		byte[] delta = XpDelta.encode(keyframeValues, currentValues);
+		assertArrayEquals(currentValues, XpDelta.decode(keyframeValues, delta));
+
+		XpEntity decoded = new XpEntity();
+		XpDelta.apply(decoded, XpDelta.decode(keyframeValues, delta));
+		assertEquals(12_000_000, decoded.getAgility_xp());
+		assertEquals(212_000_000, decoded.getOverall_xp());
+	}
+
+	@Test
+	public void testUnchanged()
+	{
+		int[] values = XpDelta.values(new XpEntity());
+		byte[] delta = XpDelta.encode(values, values);
+		assertEquals(Long.BYTES, delta.length);
+		assertArrayEquals(values, XpDelta.decode(values, delta));
+	}
+}
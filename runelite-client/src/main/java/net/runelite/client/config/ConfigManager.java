@@ -47,6 +47,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -663,22 +664,21 @@ public class ConfigManager
 		boolean changed;
 		synchronized (pendingChanges)
 		{
-			if (client != null)
+			if (client != null && !pendingChanges.isEmpty())
 			{
+				List<ConfigEntry> changes = new ArrayList<>(pendingChanges.size());
 				for (Map.Entry<String, String> entry : pendingChanges.entrySet())
 				{
-					String key = entry.getKey();
 					String value = entry.getValue();
 
-					if (Strings.isNullOrEmpty(value))
-					{
-						client.unset(key);
-					}
-					else
-					{
-						client.set(key, value);
-					}
+					ConfigEntry configEntry = new ConfigEntry();
+					configEntry.setKey(entry.getKey());
+					// a null value unsets the key
+					configEntry.setValue(Strings.isNullOrEmpty(value) ? null : value);
+					changes.add(configEntry);
 				}
+
+				client.patch(new Configuration(changes));
 			}
 			changed = !pendingChanges.isEmpty();
 			pendingChanges.clear();